@@ -0,0 +1,7 @@
+# ゲームオーバー時（プラグインが #runhole_core:event/game_over として呼び出す、runhole_end_typeは設定済み）
+
+# ゲームオーバーメッセージ
+function runhole_core:message/game_over
+
+# 3秒後にstopGameを呼び出すタイマーを開始
+function runhole_core:spectator/start
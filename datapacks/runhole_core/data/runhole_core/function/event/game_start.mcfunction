@@ -0,0 +1,8 @@
+# ゲーム開始時（プラグインが #runhole_core:event/game_start としてプレイヤーを実行者にして呼び出す）
+
+# 前回のゲームの状態をリセット
+scoreboard players reset @s runhole_milestone_shown
+tag @s remove runhole_ending
+
+# ゲーム開始メッセージ
+function runhole_core:message/game_start
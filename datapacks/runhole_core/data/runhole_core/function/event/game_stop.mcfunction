@@ -0,0 +1,4 @@
+# ゲーム終了時（プラグインが #runhole_core:event/game_stop として呼び出す）
+
+# stopGame待ちを解除
+tag @s remove runhole_ending
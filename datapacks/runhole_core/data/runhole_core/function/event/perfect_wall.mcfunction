@@ -0,0 +1,4 @@
+# 壁の穴をすべてなぞった時（プラグインが #runhole_core:event/perfect_wall として呼び出す）
+
+# パーフェクト通過メッセージ
+function runhole_core:message/perfect_wall
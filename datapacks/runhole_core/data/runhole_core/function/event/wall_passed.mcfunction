@@ -0,0 +1,4 @@
+# 壁の穴に入った時（プラグインが #runhole_core:event/wall_passed として呼び出す）
+
+# 壁通過マイルストーンメッセージ
+function runhole_core:message/wall_milestone
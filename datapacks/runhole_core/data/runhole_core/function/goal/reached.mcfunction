@@ -4,8 +4,11 @@
 scoreboard players set @s runhole_game_state 2
 scoreboard players set @s runhole_end_type 5
 
-# スペクテーターモードタイマーを初期化
-scoreboard players set @s runhole_spectator_timer 0
+# ゴールメッセージ（runhole_end_type=5）
+function runhole_core:message/game_over
+
+# 3秒後にstopGameを呼び出すタイマーを開始
+function runhole_core:spectator/start
 
 # トリガーをリセット
 scoreboard players reset @s runhole_goal_trigger
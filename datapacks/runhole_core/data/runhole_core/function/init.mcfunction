@@ -2,7 +2,6 @@
 scoreboard objectives add runhole_spectator_timer dummy "スペクテーターモードタイマー"
 scoreboard objectives add runhole_game_time dummy "ゲーム時間"
 scoreboard objectives add runhole_goal_trigger dummy "ゴールトリガー"
-scoreboard objectives add runhole_stop_request dummy "stopGameリクエスト"
 
 # スコアボード初期化（メッセージ機能）
 scoreboard objectives add runhole_lang dummy "言語設定"
@@ -0,0 +1,4 @@
+# stopGameまでのタイマーを開始（終了待ちのプレイヤーがいる間だけタイマーを毎tick実行する）
+scoreboard players set @s runhole_spectator_timer 0
+tag @s add runhole_ending
+schedule function runhole_core:spectator/timer 1t replace
@@ -1,3 +0,0 @@
-# パーフェクトボーナス = パーフェクト通過 × 300
-scoreboard players operation @s runhole_score_perfect = @s runhole_perfect_walls
-scoreboard players operation @s runhole_score_perfect *= #300 runhole_score_perfect
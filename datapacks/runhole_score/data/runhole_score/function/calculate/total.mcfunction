@@ -1,3 +0,0 @@
-# 合計スコア = 基本 + パーフェクト
-scoreboard players operation @s runhole_score_total = @s runhole_score_base
-scoreboard players operation @s runhole_score_total += @s runhole_score_perfect
@@ -1,10 +1,8 @@
 # スコアボード初期化
+# スコアはプラグインが壁通過・パーフェクト通過・ゲーム時間から計算し、変化したときだけ書き込む
 scoreboard objectives add runhole_score_base dummy "基本スコア"
 scoreboard objectives add runhole_score_perfect dummy "パーフェクトボーナス"
+scoreboard objectives add runhole_score_time dummy "時間ボーナス"
 scoreboard objectives add runhole_score_total dummy "合計スコア"
 
-# 定数の初期化
-scoreboard players set #100 runhole_score_base 100
-scoreboard players set #300 runhole_score_perfect 300
-
 tellraw @a [{"text":"[RunHole Score] ","color":"light_purple","bold":true},{"text":"スコア計算システムを読み込みました","color":"white","bold":false}]
@@ -1,4 +1,6 @@
 # パーフェクト通過時の速度上昇（5回連続、10回連続）
+# 壁を通過するたびに呼び出し、回数が5・10のあいだは効果を付け直す
+# （次のパーフェクトまで続き、そこから5秒・10秒で切れる）
 
 # 5回連続パーフェクト → Speed I を5秒
 execute if score @s runhole_perfect_walls matches 5 run effect give @s minecraft:speed 5 0 true
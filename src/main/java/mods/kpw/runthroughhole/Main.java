@@ -20,6 +20,9 @@ public class Main extends JavaPlugin {
         logger = getLogger();
         logger.info("RunThroughHoleプラグインが有効になりました。");
 
+        // 設定ファイルを読み込み（なければデフォルトを保存）
+        saveDefaultConfig();
+
         // マネージャークラスの初期化
         playerDataManager = new PlayerDataManager();
         gameManager = new GameManager(this, playerDataManager);
@@ -11,6 +11,7 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.util.RayTraceResult;
 
+import mods.kpw.runthroughhole.game.CourseMode;
 import mods.kpw.runthroughhole.game.GameScoreTracker;
 
 import java.util.ArrayList;
@@ -20,7 +21,9 @@ import java.util.List;
 public class RunHoleCommand implements CommandExecutor, TabCompleter {
 
     private final Main plugin;
-    private static final List<String> SUBCOMMANDS = Arrays.asList("start", "stop");
+    private static final List<String> SUBCOMMANDS = Arrays.asList("start", "practice", "endless", "batch", "restart", "stop");
+    // batchコマンドのコースの種類（startと同じワールドのコース、practice、endless）
+    private static final List<String> BATCH_MODES = Arrays.asList("world", "practice", "endless");
 
     public RunHoleCommand(Main plugin) {
         this.plugin = plugin;
@@ -29,7 +32,7 @@ public class RunHoleCommand implements CommandExecutor, TabCompleter {
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
         if (args.length == 0) {
-            sender.sendMessage("引数が不正です。/runhole <start|stop> [pattern] [player|@selector]");
+            sender.sendMessage("引数が不正です。/runhole <start|practice|endless|batch|restart|stop> [pattern] [player|@selector]");
             return false;
         }
 
@@ -37,22 +40,53 @@ public class RunHoleCommand implements CommandExecutor, TabCompleter {
 
         switch (subCommand) {
             case "start":
-                return handleStartCommand(sender, args);
+                return handleStartCommand(sender, args, CourseMode.WORLD);
+            case "practice":
+                return handleStartCommand(sender, args, CourseMode.PRACTICE);
+            case "endless":
+                return handleStartCommand(sender, args, CourseMode.ENDLESS);
+            case "batch":
+                return handleBatchCommand(sender, args);
+            case "restart":
+                return handleRestartCommand(sender, args);
             case "stop":
                 return handleStopCommand(sender, args);
             default:
-                sender.sendMessage("引数が不正です。/runhole <start|stop> [pattern] [player|@selector]");
+                sender.sendMessage("引数が不正です。/runhole <start|practice|endless|batch|restart|stop> [pattern] [player|@selector]");
                 return false;
         }
     }
 
     /**
-     * startコマンドの処理
+     * batchコマンドの処理（第4引数でコースの種類を指定、省略時はワールドのコース）
      */
-    private boolean handleStartCommand(CommandSender sender, String[] args) {
+    private boolean handleBatchCommand(CommandSender sender, String[] args) {
+        if (args.length < 4) {
+            return handleStartCommand(sender, args, CourseMode.WORLD);
+        }
+
+        switch (args[3].toLowerCase()) {
+            case "world":
+                return handleStartCommand(sender, args, CourseMode.WORLD);
+            case "practice":
+                return handleStartCommand(sender, args, CourseMode.PRACTICE);
+            case "endless":
+                return handleStartCommand(sender, args, CourseMode.ENDLESS);
+            default:
+                sender.sendMessage("使用方法: /runhole batch <pattern> <player|@selector> [world|practice|endless]");
+                return true;
+        }
+    }
+
+    /**
+     * start・practice・endless・batchコマンドの処理
+     *
+     * @param mode コースの種類
+     */
+    private boolean handleStartCommand(CommandSender sender, String[] args, CourseMode mode) {
         // startコマンドは最低2引数必要（start + pattern）
         if (args.length < 2) {
-            sender.sendMessage("使用方法: /runhole start <pattern> [player|@selector]");
+            sender.sendMessage("使用方法: /runhole " + args[0].toLowerCase() + " <pattern> [player|@selector]");
             return true;
         }
 
@@ -81,9 +115,17 @@ public class RunHoleCommand implements CommandExecutor, TabCompleter {
         // パターンをboolean配列に変換
         boolean[][][] pattern = parsePattern(patternArg);
 
+        // batchコマンドは準備を複数tickに分けて全員を同時に開始
+        if (args[0].equalsIgnoreCase("batch")) {
+            sender.sendMessage(targets.size() + "人のプレイヤーのゲームを準備しています...");
+            plugin.getGameManager().startGames(targets, pattern, mode,
+                    count -> sender.sendMessage(count + "人のプレイヤーのゲームを一斉に開始しました。"));
+            return true;
+        }
+
         // 各ターゲットに対してゲームを開始
         for (Player target : targets) {
-            plugin.getGameManager().startGame(target, pattern);
+            plugin.getGameManager().startGame(target, pattern, mode);
         }
 
         // 結果メッセージ
@@ -91,6 +133,34 @@ public class RunHoleCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    /**
+     * restartコマンドの処理
+     */
+    private boolean handleRestartCommand(CommandSender sender, String[] args) {
+        // ターゲットの解析
+        List<Player> targets;
+        if (args.length >= 2) {
+            // ターゲット指定あり
+            targets = resolveTargets(sender, args[1]);
+        } else {
+            // ターゲット指定なし（自分自身）
+            targets = resolveSelfTarget(sender);
+        }
+
+        if (targets == null) {
+            return true; // エラーメッセージは各メソッド内で表示済み
+        }
+
+        // 各ターゲットのゲームをその場でやり直す
+        for (Player target : targets) {
+            plugin.getGameManager().restartGame(target);
+        }
+
+        // 結果メッセージ
+        sendSuccessMessage(sender, targets, "リスタート");
+        return true;
+    }
+
     /**
      * stopコマンドの処理
      */
@@ -146,7 +216,7 @@ public class RunHoleCommand implements CommandExecutor, TabCompleter {
         // 権限チェック
         if (sender instanceof Player) {
             Player player = (Player) sender;
-            if (!targetArg.equals(player.getName()) && !player.hasPermission("runhole.admin")) {
+            if (!targetArg.equals(player.getName()) && !targetArg.equals("@s") && !player.hasPermission("runhole.admin")) {
                 player.sendMessage("他のプレイヤーを操作する権限がありません。");
                 return null;
             }
@@ -232,7 +302,8 @@ public class RunHoleCommand implements CommandExecutor, TabCompleter {
         } else if (args.length == 2) {
             String subCommand = args[0].toLowerCase();
 
-            if (subCommand.equals("start")) {
+            if (subCommand.equals("start") || subCommand.equals("practice") || subCommand.equals("endless")
+                    || subCommand.equals("batch")) {
                 // startコマンドの第2引数: パターン（プレイヤーの視線先から生成）
                 if (sender instanceof Player) {
                     Player player = (Player) sender;
@@ -241,17 +312,26 @@ public class RunHoleCommand implements CommandExecutor, TabCompleter {
                         completions.add(pattern);
                     }
                 }
-            } else if (subCommand.equals("stop")) {
-                // stopコマンドの第2引数: プレイヤー名とセレクタ
+            } else if (subCommand.equals("stop") || subCommand.equals("restart")) {
+                // stop・restartコマンドの第2引数: プレイヤー名とセレクタ
                 addPlayerCompletions(completions, args[1], sender);
             }
         } else if (args.length == 3) {
             String subCommand = args[0].toLowerCase();
 
-            if (subCommand.equals("start")) {
+            if (subCommand.equals("start") || subCommand.equals("practice") || subCommand.equals("endless")
+                    || subCommand.equals("batch")) {
                 // startコマンドの第3引数: プレイヤー名とセレクタ
                 addPlayerCompletions(completions, args[2], sender);
             }
+        } else if (args.length == 4 && args[0].equalsIgnoreCase("batch")) {
+            // batchコマンドの第4引数: コースの種類
+            String partialMode = args[3].toLowerCase();
+            for (String mode : BATCH_MODES) {
+                if (mode.startsWith(partialMode)) {
+                    completions.add(mode);
+                }
+            }
         }
 
         return completions;
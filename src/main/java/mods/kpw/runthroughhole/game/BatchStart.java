@@ -0,0 +1,35 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.entity.Player;
+
+import mods.kpw.runthroughhole.player.PlayerData;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * 複数のプレイヤーのゲームをまとめて開始するための準備状況（大会用）
+ * 準備（エンティティの配置・カメラへの搭乗）は1tickあたりの上限人数・スポーン数ずつ行い、全員の準備ができたら同じtickで開始する
+ */
+class BatchStart {
+    final Deque<Player> pending; // 準備待ちのプレイヤー
+    final List<PlayerData> prepared = new ArrayList<>(); // 準備済みのプレイヤー
+    final boolean[][][] pattern;
+    final CourseMode mode;
+    final int perTick; // 1tickあたりに準備する人数
+    final int spawnsPerTick; // 1tickあたりにスポーンするエンティティの数（1人目は超えても準備する）
+    final IntConsumer onBegin; // 開始したときの処理（開始した人数を受け取る）
+
+    BatchStart(List<Player> players, boolean[][][] pattern, CourseMode mode, int perTick, int spawnsPerTick,
+            IntConsumer onBegin) {
+        this.pending = new ArrayDeque<>(players);
+        this.pattern = pattern;
+        this.mode = mode;
+        this.perTick = Math.max(1, perTick);
+        this.spawnsPerTick = Math.max(1, spawnsPerTick);
+        this.onBegin = onBegin;
+    }
+}
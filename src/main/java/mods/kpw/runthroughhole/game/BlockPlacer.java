@@ -0,0 +1,251 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+
+import mods.kpw.runthroughhole.Main;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ワールドへのブロック設置を1tickあたりの時間予算内で少しずつ行うクラス
+ * ブロック変更をバッチで受け付けてチャンクセクションごとにまとめ、予算を使い切ったら次のtickに続きを行う
+ * バッチの完了はCompletableFutureで通知する（ゲーム中でもコースの生成・削除でtickが重くならない）
+ */
+public class BlockPlacer {
+    // 時間を確認する間隔（ブロック数）
+    private static final int TIME_CHECK_INTERVAL = 32;
+
+    /**
+     * 1つのブロック変更
+     */
+    private static class BlockChange {
+        final int x, y, z;
+        final BlockData data;
+
+        BlockChange(int x, int y, int z, BlockData data) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.data = data;
+        }
+    }
+
+    /**
+     * 1つのチャンクセクション分のブロック変更
+     */
+    private static class Section {
+        final World world;
+        final int chunkX, chunkZ;
+        final List<BlockChange> changes = new ArrayList<>();
+        final PendingBatch batch;
+        int next = 0; // 次に反映する変更のインデックス
+        boolean loading = false; // チャンクを非同期で読み込み中
+
+        Section(World world, int chunkX, int chunkZ, PendingBatch batch) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.batch = batch;
+        }
+    }
+
+    /**
+     * 受け付けたバッチの進捗
+     */
+    private static class PendingBatch {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        int remainingSections;
+    }
+
+    /**
+     * ブロック変更のバッチ（setで溜めてsubmitで受け付ける）
+     */
+    public class Batch {
+        private final World world;
+        private final Map<Long, List<BlockChange>> sections = new LinkedHashMap<>();
+
+        private Batch(World world) {
+            this.world = world;
+        }
+
+        /**
+         * ブロックの設置を追加
+         *
+         * @param x        X座標
+         * @param y        Y座標
+         * @param z        Z座標
+         * @param material 設置するマテリアル
+         * @return このバッチ
+         */
+        public Batch set(int x, int y, int z, Material material) {
+            return set(x, y, z, material.createBlockData());
+        }
+
+        /**
+         * ブロックの設置を追加
+         *
+         * @param x    X座標
+         * @param y    Y座標
+         * @param z    Z座標
+         * @param data 設置するブロック
+         * @return このバッチ
+         */
+        public Batch set(int x, int y, int z, BlockData data) {
+            long key = sectionKey(x >> 4, y >> 4, z >> 4);
+            sections.computeIfAbsent(key, k -> new ArrayList<>()).add(new BlockChange(x, y, z, data));
+            return this;
+        }
+
+        /**
+         * バッチを受け付ける
+         *
+         * @return すべての変更が反映されたときに完了するFuture
+         */
+        public CompletableFuture<Void> submit() {
+            return BlockPlacer.this.submit(this);
+        }
+    }
+
+    private final long budgetNanos; // 1tickあたりの時間予算（ナノ秒）
+    private final Deque<Section> queue = new ArrayDeque<>();
+
+    /**
+     * コンストラクタ
+     *
+     * @param budgetMillis 1tickあたりの時間予算（ミリ秒）
+     */
+    public BlockPlacer(double budgetMillis) {
+        this.budgetNanos = Math.max(1L, (long) (budgetMillis * 1_000_000L));
+    }
+
+    /**
+     * 新しいバッチを作成
+     *
+     * @param world ワールド
+     * @return バッチ
+     */
+    public Batch batch(World world) {
+        return new Batch(world);
+    }
+
+    /**
+     * バッチをチャンクセクションごとにキューへ追加
+     */
+    private CompletableFuture<Void> submit(Batch batch) {
+        PendingBatch pending = new PendingBatch();
+        pending.remainingSections = batch.sections.size();
+        if (pending.remainingSections == 0) {
+            pending.future.complete(null);
+            return pending.future;
+        }
+
+        for (List<BlockChange> changes : batch.sections.values()) {
+            BlockChange first = changes.get(0);
+            Section section = new Section(batch.world, first.x >> 4, first.z >> 4, pending);
+            section.changes.addAll(changes);
+            queue.add(section);
+        }
+        return pending.future;
+    }
+
+    /**
+     * 時間予算内でキューのブロック変更を反映（毎tick呼び出される）
+     */
+    public void tick() {
+        if (queue.isEmpty()) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + budgetNanos;
+        int waiting = 0; // チャンクの読み込み待ちで後回しにしたセクション数
+        while (!queue.isEmpty() && waiting < queue.size()) {
+            Section section = queue.peek();
+
+            // 読み込まれていないチャンクはtick内で同期読み込みせず、非同期で読み込んでから反映する
+            if (!section.world.isChunkLoaded(section.chunkX, section.chunkZ)) {
+                if (!section.loading) {
+                    section.loading = true;
+                    section.world.getChunkAtAsync(section.chunkX, section.chunkZ)
+                            .whenComplete((chunk, error) -> section.loading = false);
+                }
+                queue.add(queue.poll());
+                waiting++;
+                continue;
+            }
+
+            // セクション内の変更を反映（一定数ごとに時間を確認）
+            while (section.next < section.changes.size()) {
+                apply(section.world, section.changes.get(section.next++));
+                if (section.next % TIME_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) {
+                    return;
+                }
+            }
+
+            queue.poll();
+            completeSection(section);
+            if (System.nanoTime() >= deadline) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * キューのブロック変更をすべて反映（プラグイン停止時など）
+     */
+    public void flush() {
+        while (!queue.isEmpty()) {
+            Section section = queue.poll();
+            while (section.next < section.changes.size()) {
+                apply(section.world, section.changes.get(section.next++));
+            }
+            completeSection(section);
+        }
+    }
+
+    /**
+     * セクションの完了を記録し、バッチのすべてのセクションが終わればFutureを完了する
+     */
+    private static void completeSection(Section section) {
+        if (--section.batch.remainingSections == 0) {
+            section.batch.future.complete(null);
+        }
+    }
+
+    /**
+     * ブロック変更を反映
+     */
+    private static void apply(World world, BlockChange change) {
+        try {
+            Block block = world.getBlockAt(change.x, change.y, change.z);
+            if (!block.getBlockData().equals(change.data)) {
+                // 物理演算（周囲のブロック更新）は行わない
+                block.setBlockData(change.data, false);
+            }
+        } catch (Exception e) {
+            Main.logger.warning("[BlockPlacer] ブロック設置エラー: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 予約中のセクション数
+     */
+    public int getPendingSections() {
+        return queue.size();
+    }
+
+    /**
+     * チャンクセクションの座標を1つのlongにまとめる
+     */
+    private static long sectionKey(int sectionX, int sectionY, int sectionZ) {
+        return ((long) (sectionX & 0x3FFFFF) << 42) | ((long) (sectionY & 0xFFFFF) << 22) | (sectionZ & 0x3FFFFF);
+    }
+}
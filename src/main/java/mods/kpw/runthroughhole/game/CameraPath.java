@@ -0,0 +1,111 @@
+package mods.kpw.runthroughhole.game;
+
+import org.joml.Vector2f;
+
+import java.util.List;
+
+/**
+ * 穴の中心を通るカメラの移動経路（Catmull-Romスプライン）
+ * コースの壁の一覧から事前に計算し、tick中はキューブのZ座標で評価するだけにする（ワールド参照・メモリ確保なし）
+ */
+public class CameraPath {
+    // 制御点（カメラの初期位置からの相対座標、Z順）
+    private final double[] zs;
+    private final float[] xs;
+    private final float[] ys;
+
+    // 前回評価した区間（キューブは前にしか進まないので、ほぼ毎回そのまま使える）
+    private int cursor = 0;
+
+    /**
+     * コンストラクタ
+     *
+     * @param wallIndex コースの壁の一覧
+     * @param originX   相対座標の原点のX（カメラの初期位置）
+     * @param originY   相対座標の原点のY（カメラの初期位置）
+     * @param startZ    開始点のZ座標（キューブの開始位置）
+     * @param startX    開始点の相対X座標
+     * @param startY    開始点の相対Y座標
+     */
+    public CameraPath(WallIndex wallIndex, double originX, double originY, double startZ, float startX, float startY) {
+        List<WallIndex.Wall> walls = wallIndex.getWalls();
+        int count = walls.size() + 1;
+        this.zs = new double[count];
+        this.xs = new float[count];
+        this.ys = new float[count];
+
+        // 開始点（キューブの開始位置を見下ろす通常時のカメラ位置）
+        zs[0] = startZ;
+        xs[0] = startX;
+        ys[0] = startY;
+
+        // 各壁の穴の中心
+        for (int i = 0; i < walls.size(); i++) {
+            WallIndex.Wall wall = walls.get(i);
+            zs[i + 1] = wall.z;
+            xs[i + 1] = (float) (wall.centerX - originX);
+            ys[i + 1] = (float) (wall.centerY - originY);
+        }
+    }
+
+    /**
+     * 指定したZ座標での経路上の位置を評価
+     *
+     * @param z   キューブのZ座標
+     * @param out 結果の格納先（相対座標）
+     * @return out
+     */
+    public Vector2f evaluate(double z, Vector2f out) {
+        int last = zs.length - 1;
+
+        // 範囲外は端の点で止める
+        if (z <= zs[0]) {
+            cursor = 0;
+            return out.set(xs[0], ys[0]);
+        }
+        if (z >= zs[last]) {
+            cursor = last;
+            return out.set(xs[last], ys[last]);
+        }
+
+        // zs[cursor] <= z < zs[cursor + 1] となる区間を探す（前回の区間から進める）
+        if (cursor >= last || z < zs[cursor]) {
+            cursor = 0;
+        }
+        while (cursor < last - 1 && z >= zs[cursor + 1]) {
+            cursor++;
+        }
+
+        int i0 = Math.max(cursor - 1, 0);
+        int i1 = cursor;
+        int i2 = cursor + 1;
+        int i3 = Math.min(cursor + 2, last);
+        double span = zs[i2] - zs[i1];
+        float t = span > 0 ? (float) ((z - zs[i1]) / span) : 0f;
+
+        return out.set(
+                catmullRom(xs[i0], xs[i1], xs[i2], xs[i3], t),
+                catmullRom(ys[i0], ys[i1], ys[i2], ys[i3], t));
+    }
+
+    /**
+     * 前回評価したZ座標の手前で最後に通った壁のZ座標を取得
+     *
+     * @return 壁のZ座標（まだ壁を通っていない場合はNaN）
+     */
+    public double getPassedWallZ() {
+        return cursor >= 1 ? zs[cursor] : Double.NaN;
+    }
+
+    /**
+     * Catmull-Romスプラインの補間（p1→p2の区間）
+     */
+    private static float catmullRom(float p0, float p1, float p2, float p3, float t) {
+        float t2 = t * t;
+        float t3 = t2 * t;
+        return 0.5f * ((2f * p1)
+                + (-p0 + p2) * t
+                + (2f * p0 - 5f * p1 + 4f * p2 - p3) * t2
+                + (-p0 + 3f * p1 - 3f * p2 + p3) * t3);
+    }
+}
@@ -0,0 +1,196 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.World;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * キューブの前方のチャンクを非同期で先読みし、プラグインのチャンクチケットで読み込んだままにするクラス
+ * セッションごとにカメラからキューブの前方までの範囲（Window）を持ち、進むにつれてカメラより後ろのチケットを外す
+ * 同じチャンクを複数のセッションやリグのプールが使う場合があるため、プラグインのチケットはすべてこのクラスでチャンクごとに参照数で管理する
+ * （ゲームのtick中にgetBlockAtでチャンクが同期読み込みされないようにする）
+ */
+public class ChunkPreloader {
+    private final JavaPlugin plugin;
+
+    // ワールドごと・チャンクごとの参照数（チケットを付けているチャンク）
+    private final Map<UUID, Map<Long, Integer>> references = new HashMap<>();
+
+    public ChunkPreloader(JavaPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 1セッション分の先読み範囲
+     */
+    public class Window {
+        private final World world;
+        private final int minChunkX; // 範囲のX方向（チャンク座標）
+        private final int maxChunkX;
+        private final int aheadChunks; // キューブの前方に先読みするチャンク数
+
+        // この範囲が参照しているチャンク
+        private final Set<Long> chunks = new HashSet<>();
+        private int startChunkZ = Integer.MIN_VALUE;
+        private int endChunkZ = Integer.MIN_VALUE;
+
+        private Window(World world, int minX, int maxX, int aheadChunks) {
+            this.world = world;
+            this.minChunkX = minX >> 4;
+            this.maxChunkX = maxX >> 4;
+            this.aheadChunks = aheadChunks;
+        }
+
+        /**
+         * キューブとカメラの位置に合わせて範囲を動かす（毎tick呼び出される、チャンクをまたいだときのみ処理）
+         *
+         * @param cubeZ   キューブのZ座標
+         * @param cameraZ カメラのZ座標
+         */
+        public void update(double cubeZ, double cameraZ) {
+            int start = (int) Math.floor(cameraZ) >> 4;
+            int end = ((int) Math.floor(cubeZ) >> 4) + aheadChunks;
+            if (start == startChunkZ && end == endChunkZ) {
+                return;
+            }
+            startChunkZ = start;
+            endChunkZ = end;
+
+            // 前方の新しいチャンクを参照
+            for (int chunkZ = start; chunkZ <= end; chunkZ++) {
+                for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                    long key = chunkKey(chunkX, chunkZ);
+                    if (chunks.add(key)) {
+                        acquire(world, chunkX, chunkZ, key);
+                    }
+                }
+            }
+
+            // カメラより後ろのチャンクの参照を外す
+            Iterator<Long> iterator = chunks.iterator();
+            while (iterator.hasNext()) {
+                long key = iterator.next();
+                int chunkZ = (int) key;
+                if (chunkZ < start) {
+                    iterator.remove();
+                    release(world, (int) (key >> 32), chunkZ, key);
+                }
+            }
+        }
+
+        /**
+         * 範囲のチャンクがすべて読み込まれているかどうか（開始前に読み込みを待つ）
+         *
+         * @return すべて読み込まれている場合はtrue
+         */
+        public boolean isReady() {
+            for (long key : chunks) {
+                if (!world.isChunkLoaded((int) (key >> 32), (int) key)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * すべてのチャンクの参照を外す（ゲーム終了時）
+         */
+        public void close() {
+            for (long key : chunks) {
+                release(world, (int) (key >> 32), (int) key, key);
+            }
+            chunks.clear();
+        }
+    }
+
+    /**
+     * 先読み範囲を作成
+     *
+     * @param world       ワールド
+     * @param minX        範囲のX方向の最小（ブロック座標）
+     * @param maxX        範囲のX方向の最大（ブロック座標）
+     * @param aheadChunks キューブの前方に先読みするチャンク数
+     * @return 先読み範囲
+     */
+    public Window open(World world, int minX, int maxX, int aheadChunks) {
+        return new Window(world, minX, maxX, aheadChunks);
+    }
+
+    /**
+     * 先読み範囲以外でチャンクを読み込んだままにする（リグの待機位置など）
+     * 先読み範囲と同じチャンクでも、参照数で管理するためどちらかが外してもチケットは残る
+     *
+     * @param world  ワールド
+     * @param chunkX チャンクのX座標
+     * @param chunkZ チャンクのZ座標
+     */
+    public void hold(World world, int chunkX, int chunkZ) {
+        acquire(world, chunkX, chunkZ, chunkKey(chunkX, chunkZ));
+    }
+
+    /**
+     * holdで読み込んだままにしたチャンクの参照を外す
+     *
+     * @param world  ワールド
+     * @param chunkX チャンクのX座標
+     * @param chunkZ チャンクのZ座標
+     */
+    public void unhold(World world, int chunkX, int chunkZ) {
+        release(world, chunkX, chunkZ, chunkKey(chunkX, chunkZ));
+    }
+
+    /**
+     * チャンクを参照（初めての参照の場合は非同期で読み込み、読み込み後にチケットを付ける）
+     */
+    private void acquire(World world, int chunkX, int chunkZ, long key) {
+        Map<Long, Integer> worldReferences = references.computeIfAbsent(world.getUID(), k -> new HashMap<>());
+        int count = worldReferences.merge(key, 1, Integer::sum);
+        if (count > 1) {
+            return;
+        }
+
+        world.getChunkAtAsync(chunkX, chunkZ).thenAccept(chunk -> {
+            // 読み込み中に参照が外れていなければチケットを付ける
+            if (worldReferences.containsKey(key)) {
+                world.addPluginChunkTicket(chunkX, chunkZ, plugin);
+            }
+        });
+    }
+
+    /**
+     * チャンクの参照を外す（参照がなくなったらチケットを外す）
+     */
+    private void release(World world, int chunkX, int chunkZ, long key) {
+        Map<Long, Integer> worldReferences = references.get(world.getUID());
+        if (worldReferences == null) {
+            return;
+        }
+        Integer count = worldReferences.get(key);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            worldReferences.put(key, count - 1);
+            return;
+        }
+
+        worldReferences.remove(key);
+        world.removePluginChunkTicket(chunkX, chunkZ, plugin);
+        if (worldReferences.isEmpty()) {
+            references.remove(world.getUID());
+        }
+    }
+
+    /**
+     * チャンク座標を1つのlongにまとめる
+     */
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,42 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+/**
+ * コースのブロックの参照先
+ * 通常はワールドのブロックを参照し、練習モードではセッション専用の仮想の壁を参照する
+ */
+@FunctionalInterface
+public interface CourseBlocks {
+    /**
+     * 指定位置のブロックのマテリアルを取得
+     *
+     * @param x X座標
+     * @param y Y座標
+     * @param z Z座標
+     * @return マテリアル
+     */
+    Material getType(int x, int y, int z);
+
+    /**
+     * 指定位置のブロックのマテリアルを取得
+     *
+     * @param location 位置
+     * @return マテリアル
+     */
+    default Material getType(Location location) {
+        return getType(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * ワールドのブロックを参照
+     *
+     * @param world ワールド
+     * @return ワールドを参照するCourseBlocks
+     */
+    static CourseBlocks of(World world) {
+        return (x, y, z) -> world.getBlockAt(x, y, z).getType();
+    }
+}
@@ -0,0 +1,15 @@
+package mods.kpw.runthroughhole.game;
+
+/**
+ * コースの種類
+ */
+public enum CourseMode {
+    /** ワールドに建築されたコース */
+    WORLD,
+
+    /** 練習モード（決まった枚数の仮想の壁） */
+    PRACTICE,
+
+    /** エンドレスモード（前方に壁を生成し続ける） */
+    ENDLESS
+}
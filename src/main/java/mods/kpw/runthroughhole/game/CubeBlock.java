@@ -4,8 +4,9 @@ import org.bukkit.entity.BlockDisplay;
 import org.joml.Vector3f;
 
 // BlockDisplayとオフセットをまとめて管理するクラス
+// displayは同じ直方体にまとめられた他のブロックと共有される（CubeMesh参照）
 public class CubeBlock {
-    public BlockDisplay display;
+    public BlockDisplay display; // このブロックを描画している直方体のBlockDisplay
     public Vector3f offset; // ローカル座標での相対位置
 
     public CubeBlock(BlockDisplay display, Vector3f offset) {
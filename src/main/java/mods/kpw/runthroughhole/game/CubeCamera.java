@@ -2,12 +2,9 @@ package mods.kpw.runthroughhole.game;
 
 import org.bukkit.Location;
 import org.bukkit.World;
+import org.bukkit.entity.BlockDisplay;
 import org.bukkit.entity.Entity;
-import org.bukkit.entity.EntityType;
-import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
-import org.bukkit.potion.PotionEffect;
-import org.bukkit.potion.PotionEffectType;
 import io.papermc.paper.entity.TeleportFlag;
 import org.joml.Vector2f;
 
@@ -23,6 +20,7 @@ public class CubeCamera {
     private static final double CUBE_TARGET_LERP_FACTOR = 0.02; // カメラのスムーズ移動速度
     private static final double SWITCH_TARGET_LERP_FACTOR = 0.2; // カメラターゲットのlerp速度（holeとcubeTargetの切り替え用）
     private static final double CEILING_COLLISION_LERP_FACTOR = 0.3; // 天井衝突時の高速下降lerp速度
+    private static final double HOLE_PASS_MARGIN = 1.0; // 経路モードで穴を通過したとみなすカメラの余裕（HoleStateと同じ）
 
     // カメラ位置の微調整用定数（正の値で上、負の値で下）
     private static final double CAMERA_HEIGHT_ADJUSTMENT = -1; // カメラの高さ微調整（ブロック単位）
@@ -36,8 +34,28 @@ public class CubeCamera {
     private final HoleState holeState; // 穴通過状態管理
 
     private Entity entity; // カメラ用のエンティティ（基底クラス、将来的に変更可能）
+    private boolean pooledEntity; // プールのリグの椅子を使っているか（終了時に削除しない）
     private Player player; // プレイヤー
 
+    // カメラ位置の送信間隔（tick）と、送り直すずれの閾値（ブロック）
+    // 間隔が1以下の場合は毎tickテレポートする
+    private final int updateInterval;
+    private final double positionEpsilon;
+    private InterpolatedMover mover; // 間隔を空けて送る場合の移動（クライアント側補間）
+    private Location lastCameraLocation; // 最後に計算したカメラ位置（予測を含まない実際の位置）
+
+    // 事前計算したカメラ経路（nullの場合はキューブと穴を毎tick追従する）
+    private CameraPath path;
+    private int pathWallCount; // 経路を作成したときの壁の数（壁が増えたら作り直す）
+    private final Location pathCameraLocation; // 経路モードで使い回すカメラ位置
+    private final Vector2f pathTarget = new Vector2f(); // 経路上の穴の中心（使い回す）
+    private final Vector2f cubePosition = new Vector2f(); // キューブの上のカメラ位置（使い回す）
+
+    // 天井の検索結果（キューブのブロック座標が変わったときだけ調べ直す）
+    private boolean ceilingValid = false;
+    private int ceilingBlockX, ceilingBlockY, ceilingBlockZ; // 調べたキューブのブロック座標
+    private int ceilingBlock; // 見つかった天井のブロックのY座標（ない場合はInteger.MAX_VALUE）
+
     // キューブの現在位置
     private Location cubeLocation;
     // カメラの状態
@@ -53,9 +71,14 @@ public class CubeCamera {
      * @param world           ワールド
      * @param initialLocation 初期位置
      * @param cube            プレイヤーキューブ
+     * @param updateInterval  カメラ位置の送信間隔（tick、1以下で毎tick）
+     * @param positionEpsilon 間隔内でも送り直すずれの閾値（ブロック）
      */
-    public CubeCamera(World world, Location initialLocation, PlayerCube cube) {
+    public CubeCamera(World world, Location initialLocation, PlayerCube cube, int updateInterval,
+            double positionEpsilon) {
         this.world = world;
+        this.updateInterval = updateInterval;
+        this.positionEpsilon = positionEpsilon;
         this.initialLocation = initialLocation.clone().add(0, 0, -CubeCamera.CAMERA_DISTANCE_BEHIND);
         this.cube = cube;
         this.holeState = new HoleState();
@@ -63,6 +86,38 @@ public class CubeCamera {
         // 初期カメラ位置（通常時の位置）
         this.cubeTarget = new Vector2f(0.0f, (float) CAMERA_HEIGHT_OFFSET);
         this.cameraTarget = new Vector2f(0.0f, (float) CAMERA_HEIGHT_OFFSET);
+
+        this.pathCameraLocation = this.initialLocation.clone();
+        this.pathCameraLocation.setYaw(0f);
+        this.pathCameraLocation.setPitch(0f);
+    }
+
+    /**
+     * コースの壁の一覧からカメラ経路を作成して使用する
+     * 開始点は通常時のカメラ位置、以降は各壁の穴の中心を通る
+     *
+     * @param wallIndex コースの壁の一覧（壁がない場合は経路を使わない）
+     */
+    public void usePath(WallIndex wallIndex) {
+        this.pathWallCount = wallIndex == null ? 0 : wallIndex.getWalls().size();
+        if (wallIndex == null || wallIndex.isEmpty()) {
+            this.path = null;
+            return;
+        }
+        this.path = new CameraPath(wallIndex, initialLocation.getX(), initialLocation.getY(),
+                initialLocation.getZ() + CAMERA_DISTANCE_BEHIND, 0.0f, (float) CAMERA_HEIGHT_OFFSET);
+    }
+
+    /**
+     * 走査が進んで壁の数が変わった場合だけカメラ経路を作り直す（毎tick呼び出される）
+     *
+     * @param wallIndex コースの壁の一覧
+     */
+    public void updatePath(WallIndex wallIndex) {
+        int count = wallIndex == null ? 0 : wallIndex.getWalls().size();
+        if (count != pathWallCount) {
+            usePath(wallIndex);
+        }
     }
 
     /**
@@ -71,16 +126,34 @@ public class CubeCamera {
      * @param player プレイヤー
      */
     public void setup(Player player) {
+        setup(player, null);
+    }
+
+    /**
+     * カメラをセットアップ（椅子の配置とプレイヤーの搭乗）
+     *
+     * @param player プレイヤー
+     * @param seat   プールのリグの椅子（nullの場合はスポーンする）
+     */
+    public void setup(Player player, BlockDisplay seat) {
         this.player = player;
 
-        // 透明で動かない椅子をスポーン
-        LivingEntity entity = (LivingEntity) world.spawnEntity(initialLocation, EntityType.BEE);
-        entity.setInvulnerable(true);
-        entity.setGravity(false);
-        entity.setSilent(true);
-        entity.setAI(false); // AIを無効化して完全に動かなくする
-        entity.addPotionEffect(new PotionEffect(PotionEffectType.INVISIBILITY, Integer.MAX_VALUE, 0, false, false));
+        // 透明で動かない椅子をスポーン（中身のないBlockDisplay、teleport_durationで補間できる）
+        BlockDisplay entity;
+        if (seat != null) {
+            entity = seat;
+            entity.teleport(initialLocation);
+        } else {
+            // 追加する前に非表示にしておく（見せるプレイヤーはRigEntitiesで決める）
+            entity = world.spawn(initialLocation, BlockDisplay.class, e -> e.setVisibleByDefault(false));
+        }
         this.entity = entity;
+        this.pooledEntity = seat != null;
+
+        // 間隔を空けて送る場合は、その間をクライアントに補間させる
+        if (updateInterval > 1) {
+            this.mover = new InterpolatedMover(entity, updateInterval, positionEpsilon);
+        }
 
         // エンティティの高さを取得（プレイヤーが乗る位置のオフセット）
         this.entityHeightOffset = entity.getHeight();
@@ -96,6 +169,12 @@ public class CubeCamera {
         if (entity == null || cube == null)
             return;
 
+        // 事前計算した経路がある場合は、経路上の穴の中心とキューブの上の間で寄せる
+        if (path != null) {
+            updateAlongPath();
+            return;
+        }
+
         // キューブの現在位置を取得
         cubeLocation = cube.getCurrentLocation();
         // カメラの絶対Z座標を計算
@@ -119,9 +198,51 @@ public class CubeCamera {
                 cameraAbsoluteZ - initialLocation.getZ());
         newCameraLoc.setYaw(0f);
         newCameraLoc.setPitch(0f);
+        lastCameraLocation = newCameraLoc;
+
+        moveEntity(newCameraLoc);
+    }
+
+    /**
+     * 事前計算した経路に沿ってカメラ位置を更新
+     * 壁の前後では経路上の穴の中心へ、それ以外ではキューブの上（通常時の高さ）へ寄せる
+     * Locationは作らず、天井はキューブのブロック座標が変わったときだけコースのブロックから調べる
+     */
+    private void updateAlongPath() {
+        double cubeZ = cube.getCurrentZ();
+
+        // キューブのZ座標での経路上の位置（穴の中心を通るスプライン）
+        path.evaluate(cubeZ, pathTarget);
+
+        // 最後に通った壁をカメラが通り過ぎるまでは穴の中心に寄せる（追従モードの穴通過状態と同じ範囲）
+        double wallZ = path.getPassedWallZ();
+        boolean inHole = !Double.isNaN(wallZ) && cubeZ - wallZ <= CAMERA_DISTANCE_BEHIND + HOLE_PASS_MARGIN;
+
+        // キューブの位置に寄せる目標を更新し、穴の中心との間を切り替える
+        updateCubeTarget(cube.getCurrentX(), cube.getCurrentY(), cubeZ);
+        updateSwitchTarget(inHole);
+        cameraTarget.set(cubeTarget).lerp(pathTarget, switchTargetLerpFactor);
 
+        // プレイヤーの視点がcameraTarget.yになるように、エンティティの高さ分を引く
+        pathCameraLocation.setX(initialLocation.getX() + cameraTarget.x);
+        pathCameraLocation.setY(initialLocation.getY() + cameraTarget.y + (CAMERA_HEIGHT_ADJUSTMENT - entityHeightOffset));
+        pathCameraLocation.setZ(cubeZ - CAMERA_DISTANCE_BEHIND);
+        lastCameraLocation = pathCameraLocation;
+
+        moveEntity(pathCameraLocation);
+    }
+
+    /**
+     * 椅子をカメラ位置に移動
+     *
+     * @param newCameraLoc 新しいカメラ位置
+     */
+    private void moveEntity(Location newCameraLoc) {
         // 椅子をテレポート
-        if (player != null && entity.getPassengers().contains(player)) {
+        if (mover != null) {
+            // 移動が閾値を超えたとき、または送信間隔ごとにだけ送る
+            mover.update(newCameraLoc);
+        } else if (player != null && entity.getPassengers().contains(player)) {
             entity.teleport(newCameraLoc, TeleportFlag.EntityState.RETAIN_PASSENGERS);
         } else {
             entity.teleport(newCameraLoc);
@@ -139,9 +260,25 @@ public class CubeCamera {
                         (float) (holeLocation.getY() - initialLocation.getY()))
                 : new Vector2f();
 
+        updateCubeTarget(cubeLocation.getX(), cubeLocation.getY(), cubeLocation.getZ());
+        updateSwitchTarget(holeState.isInHole());
+
+        // cubeフォーカスに完全に切り替え
+        // Vector2fを使用して現在位置を目標位置に向けてスムーズに補間（lerp）
+        cameraTarget = cameraTarget.set(cubeTarget).lerp(holeTarget, switchTargetLerpFactor);
+    }
+
+    /**
+     * キューブに寄せるカメラの目標位置を更新（キューブの上、天井がある場合はその下）
+     *
+     * @param cubeX キューブのX座標
+     * @param cubeY キューブのY座標
+     * @param cubeZ キューブのZ座標
+     */
+    private void updateCubeTarget(double cubeX, double cubeY, double cubeZ) {
         // キューブの位置を取得（天井制限を考慮）
-        double desiredCameraY = cubeLocation.getY() + CAMERA_HEIGHT_OFFSET;
-        double ceilingY = getCeilingY();
+        double desiredCameraY = cubeY + CAMERA_HEIGHT_OFFSET;
+        double ceilingY = getCeilingY(cubeX, cubeY, cubeZ);
 
         // 天井衝突状態を更新
         boolean isCeilingCollision = (ceilingY < desiredCameraY);
@@ -153,43 +290,118 @@ public class CubeCamera {
         }
 
         // キューブの位置を更新
-        Vector2f cubePosition = new Vector2f(
-                (float) (cubeLocation.getX() - initialLocation.getX()),
+        cubePosition.set(
+                (float) (cubeX - initialLocation.getX()),
                 (float) (Math.min(ceilingY, desiredCameraY) - initialLocation.getY()));
         cubeTarget.lerp(cubePosition, (float) lerpFactor);
+    }
 
-        // カメラターゲットのlerpファクターを更新
-        float targetLerpFactor = holeState.isInHole() ? 1.0f : 0.0f;
+    /**
+     * カメラターゲットのlerpファクターを更新（穴とキューブの切り替え）
+     *
+     * @param inHole 穴に寄せる場合はtrue
+     */
+    private void updateSwitchTarget(boolean inHole) {
+        float targetLerpFactor = inHole ? 1.0f : 0.0f;
         switchTargetLerpFactor += (targetLerpFactor - switchTargetLerpFactor) * SWITCH_TARGET_LERP_FACTOR;
-
-        // cubeフォーカスに完全に切り替え
-        // Vector2fを使用して現在位置を目標位置に向けてスムーズに補間（lerp）
-        cameraTarget = cameraTarget.set(cubeTarget).lerp(holeTarget, switchTargetLerpFactor);
     }
 
     /**
      * 天井を検出してカメラの高さを制限する
-     * 
+     * コースのブロック（練習モードでは仮想の壁を含む）を、キューブのブロック座標が変わったときだけ調べる
+     *
+     * @param cubeX キューブのX座標
+     * @param cubeY キューブのY座標
+     * @param cubeZ キューブのZ座標
      * @return 天井のY座標
      */
-    private double getCeilingY() {
-        // 現在のY座標から上に向かって天井を検索
-        int startY = cubeLocation.getBlockY();
+    private double getCeilingY(double cubeX, double cubeY, double cubeZ) {
+        int blockX = (int) Math.floor(cubeX);
+        int blockY = (int) Math.floor(cubeY);
+        int blockZ = (int) Math.floor(cubeZ);
+        if (!ceilingValid || blockX != ceilingBlockX || blockY != ceilingBlockY || blockZ != ceilingBlockZ) {
+            ceilingValid = true;
+            ceilingBlockX = blockX;
+            ceilingBlockY = blockY;
+            ceilingBlockZ = blockZ;
+            ceilingBlock = findCeilingBlock(blockX, blockY, blockZ);
+        }
+
+        if (ceilingBlock != Integer.MAX_VALUE) {
+            // 天井を発見：カメラがその位置より下になるように制限
+            return ceilingBlock - 1.0;
+        }
+
+        // 天井が見つからない場合は最大高さを返す
+        return cubeY + CAMERA_HEIGHT_OFFSET;
+    }
+
+    /**
+     * キューブの位置から上に向かって天井のブロックを探す
+     *
+     * @return 天井のブロックのY座標（ない場合はInteger.MAX_VALUE）
+     */
+    private int findCeilingBlock(int blockX, int startY, int blockZ) {
+        // 読み込まれていないチャンクは同期読み込みせず、天井なしとする
+        if (!world.isChunkLoaded(blockX >> 4, blockZ >> 4)) {
+            return Integer.MAX_VALUE;
+        }
+
         // 最大検索範囲を設定（カメラの高さオフセット + 余裕分）
+        CourseBlocks course = cube.getCourse();
         int endY = startY + (int) Math.ceil(CAMERA_HEIGHT_OFFSET);
-
         for (int y = startY; y <= endY; y++) {
-            Location checkLocation = new Location(world, cubeLocation.getX(), y, cubeLocation.getZ());
-
-            // その位置にブロックがあるかチェック
-            if (!world.getBlockAt(checkLocation).isEmpty()) {
-                // 天井を発見：カメラがその位置より下になるように制限
-                return checkLocation.getY() - 1.0;
+            if (!PlayerCube.isAir(course.getType(blockX, y, blockZ))) {
+                return y;
             }
         }
+        return Integer.MAX_VALUE;
+    }
 
-        // 天井が見つからない場合は最大高さを返す
-        return cubeLocation.getY() + CAMERA_HEIGHT_OFFSET;
+    /**
+     * カメラをキューブの現在位置の通常状態に戻す（リスタート・チェックポイントからの再開用）
+     * 椅子は作り直さず、降車していた場合は乗せ直す
+     */
+    public void reset() {
+        if (entity == null) {
+            return;
+        }
+        holeState.reset();
+        ceilingValid = false;
+        cubeTarget.set(0.0f, (float) CAMERA_HEIGHT_OFFSET);
+        cameraTarget.set(0.0f, (float) CAMERA_HEIGHT_OFFSET);
+        switchTargetLerpFactor = 0.0f;
+
+        // 戻した位置を計算し、予測なしで合わせる
+        update();
+        snapPosition();
+
+        // ゲームオーバーで降車していた場合は乗せ直す
+        if (player != null && !entity.getPassengers().contains(player)) {
+            player.teleport(getCameraLocation());
+            entity.addPassenger(player);
+        }
+    }
+
+    /**
+     * 椅子を予測なしで現在のカメラ位置に合わせる（降車前など）
+     */
+    public void snapPosition() {
+        if (mover != null && lastCameraLocation != null) {
+            mover.snap(lastCameraLocation);
+        }
+    }
+
+    /**
+     * 椅子の実際の位置を取得（椅子は予測位置にテレポートしているため、位置を参照する場合はこちらを使う）
+     *
+     * @return カメラ位置
+     */
+    public Location getCameraLocation() {
+        if (lastCameraLocation != null) {
+            return lastCameraLocation.clone();
+        }
+        return mover != null ? mover.getActualLocation() : entity.getLocation();
     }
 
     /**
@@ -231,7 +443,10 @@ public class CubeCamera {
     public void cleanup() {
         if (entity != null) {
             entity.eject();
-            entity.remove();
+            // プールの椅子は削除せずにプールに戻す（GameManager側で返却）
+            if (!pooledEntity) {
+                entity.remove();
+            }
             entity = null;
         }
         player = null;
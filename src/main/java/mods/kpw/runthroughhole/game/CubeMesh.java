@@ -0,0 +1,259 @@
+package mods.kpw.runthroughhole.game;
+
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.joml.Vector3i;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * キューブの形状を直方体の集合にまとめるクラス（Greedy Meshing）
+ * 1つの直方体を1つの拡大したBlockDisplayで描画することで、エンティティ数と更新量を減らす
+ *
+ * 直方体はキューブのローカル座標で分割し、回転（24通りの向き）ごとの配置オフセットを事前計算しておく
+ */
+public class CubeMesh {
+    // キューブの範囲定数（PlayerCubeと同じ3x3x3）
+    private static final int SIZE = 3;
+    private static final int CUBE_RANGE = 1;
+
+    // 90度回転の組み合わせで取りうる24通りの向き
+    private static final List<Quaternionf> ORIENTATIONS = createOrientations();
+
+    /**
+     * 直方体（ローカル座標）
+     */
+    public static class Box {
+        public final Vector3i min; // 最小セルのオフセット（-1～1）
+        public final Vector3i size; // 各軸のセル数
+
+        public Box(Vector3i min, Vector3i size) {
+            this.min = min;
+            this.size = size;
+        }
+    }
+
+    // 分割した直方体
+    private final List<Box> boxes;
+    // セルごとの所属直方体のインデックス（空セルは-1）
+    private final int[][][] boxIndex;
+    // 向きごとの各直方体の配置オフセット（BlockDisplayのTranslation用、回転適用済み）
+    private final Vector3f[][] rotatedOrigins;
+
+    /**
+     * コンストラクタ
+     *
+     * @param shape 3x3x3のブロック配列
+     */
+    public CubeMesh(boolean[][][] shape) {
+        // 軸の走査順6通りでGreedy Meshingを行い、最も直方体が少ない結果を採用
+        int[][] axisOrders = { { 0, 1, 2 }, { 0, 2, 1 }, { 1, 0, 2 }, { 1, 2, 0 }, { 2, 0, 1 }, { 2, 1, 0 } };
+        List<Box> best = null;
+        for (int[] axisOrder : axisOrders) {
+            List<Box> result = greedyMesh(shape, axisOrder);
+            if (best == null || result.size() < best.size()) {
+                best = result;
+            }
+        }
+        this.boxes = Collections.unmodifiableList(best);
+
+        // セル→直方体の対応表を作成
+        this.boxIndex = new int[SIZE][SIZE][SIZE];
+        for (int[][] plane : boxIndex) {
+            for (int[] row : plane) {
+                Arrays.fill(row, -1);
+            }
+        }
+        for (int i = 0; i < boxes.size(); i++) {
+            Box box = boxes.get(i);
+            for (int x = 0; x < box.size.x; x++) {
+                for (int y = 0; y < box.size.y; y++) {
+                    for (int z = 0; z < box.size.z; z++) {
+                        boxIndex[box.min.x + x + CUBE_RANGE][box.min.y + y + CUBE_RANGE][box.min.z + z + CUBE_RANGE] = i;
+                    }
+                }
+            }
+        }
+
+        // 向きごとの配置オフセットを事前計算
+        // BlockDisplayは(0,0,0)～(1,1,1)のブロックを描画するので、直方体の最小セルの角(min - 0.5)を回転させた位置に置く
+        this.rotatedOrigins = new Vector3f[ORIENTATIONS.size()][boxes.size()];
+        for (int o = 0; o < ORIENTATIONS.size(); o++) {
+            Quaternionf orientation = ORIENTATIONS.get(o);
+            for (int i = 0; i < boxes.size(); i++) {
+                Box box = boxes.get(i);
+                rotatedOrigins[o][i] = new Vector3f(box.min.x - 0.5f, box.min.y - 0.5f, box.min.z - 0.5f)
+                        .rotate(orientation);
+            }
+        }
+    }
+
+    /**
+     * 指定した軸順でGreedy Meshingを行う
+     *
+     * @param shape     3x3x3のブロック配列
+     * @param axisOrder 伸ばす軸の順番（0=X, 1=Y, 2=Z）
+     * @return 直方体のリスト
+     */
+    private static List<Box> greedyMesh(boolean[][][] shape, int[] axisOrder) {
+        boolean[][][] visited = new boolean[SIZE][SIZE][SIZE];
+        List<Box> result = new ArrayList<>();
+
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int z = 0; z < SIZE; z++) {
+                    if (!shape[x][y][z] || visited[x][y][z]) {
+                        continue;
+                    }
+
+                    // 軸の順番に、未使用の埋まったセルが続く限り直方体を伸ばす
+                    int[] min = { x, y, z };
+                    int[] size = { 1, 1, 1 };
+                    for (int axis : axisOrder) {
+                        while (min[axis] + size[axis] < SIZE && canExtend(shape, visited, min, size, axis)) {
+                            size[axis]++;
+                        }
+                    }
+
+                    for (int dx = 0; dx < size[0]; dx++) {
+                        for (int dy = 0; dy < size[1]; dy++) {
+                            for (int dz = 0; dz < size[2]; dz++) {
+                                visited[min[0] + dx][min[1] + dy][min[2] + dz] = true;
+                            }
+                        }
+                    }
+
+                    result.add(new Box(
+                            new Vector3i(min[0] - CUBE_RANGE, min[1] - CUBE_RANGE, min[2] - CUBE_RANGE),
+                            new Vector3i(size[0], size[1], size[2])));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 直方体を指定軸方向に1セル伸ばせるか判定
+     */
+    private static boolean canExtend(boolean[][][] shape, boolean[][][] visited, int[] min, int[] size, int axis) {
+        int[] from = min.clone();
+        int[] to = { min[0] + size[0], min[1] + size[1], min[2] + size[2] };
+        // 伸ばす先の1層だけをチェック
+        from[axis] = min[axis] + size[axis];
+        to[axis] = from[axis] + 1;
+
+        for (int x = from[0]; x < to[0]; x++) {
+            for (int y = from[1]; y < to[1]; y++) {
+                for (int z = from[2]; z < to[2]; z++) {
+                    if (!shape[x][y][z] || visited[x][y][z]) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 90度回転の組み合わせで取りうる24通りの向きを列挙
+     */
+    private static List<Quaternionf> createOrientations() {
+        List<Quaternionf> result = new ArrayList<>();
+        result.add(new Quaternionf());
+
+        Quaternionf[] steps = {
+                new Quaternionf().rotateX((float) Math.toRadians(90)),
+                new Quaternionf().rotateY((float) Math.toRadians(90)),
+                new Quaternionf().rotateZ((float) Math.toRadians(90)),
+        };
+
+        // 幅優先で新しい向きが見つからなくなるまで回転を重ねる
+        for (int i = 0; i < result.size(); i++) {
+            for (Quaternionf step : steps) {
+                Quaternionf candidate = new Quaternionf(step).mul(result.get(i));
+                if (findOrientation(result, candidate) < 0) {
+                    result.add(candidate);
+                }
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 同じ向きのクォータニオンのインデックスを検索
+     *
+     * @return 見つからない場合は-1
+     */
+    private static int findOrientation(List<Quaternionf> orientations, Quaternionf rotation) {
+        for (int i = 0; i < orientations.size(); i++) {
+            // qと-qは同じ向きなので内積の絶対値で比較
+            if (Math.abs(orientations.get(i).dot(rotation)) > 0.99f) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 回転に最も近い向きのインデックスを取得（浮動小数点の誤差を吸収）
+     *
+     * @param rotation 回転
+     * @return 向きのインデックス（0～23）
+     */
+    public static int getOrientationIndex(Quaternionf rotation) {
+        int bestIndex = 0;
+        float bestDot = -1f;
+        for (int i = 0; i < ORIENTATIONS.size(); i++) {
+            float dot = Math.abs(ORIENTATIONS.get(i).dot(rotation));
+            if (dot > bestDot) {
+                bestDot = dot;
+                bestIndex = i;
+            }
+        }
+        return bestIndex;
+    }
+
+    /**
+     * 向きのクォータニオンを取得
+     *
+     * @param orientationIndex 向きのインデックス
+     * @return 向きのクォータニオン（変更しないこと）
+     */
+    public static Quaternionf getOrientation(int orientationIndex) {
+        return ORIENTATIONS.get(orientationIndex);
+    }
+
+    /**
+     * 直方体のリストを取得
+     */
+    public List<Box> getBoxes() {
+        return boxes;
+    }
+
+    /**
+     * セルが所属する直方体のインデックスを取得
+     *
+     * @param x X オフセット（-1～1）
+     * @param y Y オフセット（-1～1）
+     * @param z Z オフセット（-1～1）
+     * @return 直方体のインデックス（空セルは-1）
+     */
+    public int getBoxIndex(int x, int y, int z) {
+        return boxIndex[x + CUBE_RANGE][y + CUBE_RANGE][z + CUBE_RANGE];
+    }
+
+    /**
+     * 直方体の配置オフセットを取得（向きの回転適用済み）
+     *
+     * @param orientationIndex 向きのインデックス
+     * @param boxIndex         直方体のインデックス
+     * @return 配置オフセット（変更しないこと）
+     */
+    public Vector3f getRotatedOrigin(int orientationIndex, int boxIndex) {
+        return rotatedOrigins[orientationIndex][boxIndex];
+    }
+}
@@ -17,7 +17,7 @@ import java.util.Set;
 
 /**
  * プレイヤーキューブの手前になぞったブロックを表示するクラス
- * PlayerCubeの蜂に乗せて、後ろにオフセットして表示
+ * PlayerCubeのキャリアエンティティに乗せて、後ろにオフセットして表示
  */
 public class CubePreview {
     private World world;
@@ -25,6 +25,9 @@ public class CubePreview {
     private Location baseLocation;
     private JavaPlugin plugin;
 
+    // パネル用BlockDisplayのプール（セッション共通）
+    private DisplayPool displayPool;
+
     // BlockDisplayを管理（Vector2i位置をキーとする）
     private Map<Vector2i, BlockDisplay> displayMap;
 
@@ -42,14 +45,15 @@ public class CubePreview {
     private BukkitTask shrinkTask = null; // 縮小アニメーション開始タスク
     private BukkitTask clearTask = null; // クリア実行タスク
 
-    public CubePreview(World world, PlayerCube cube, Location baseLocation, JavaPlugin plugin) {
+    public CubePreview(World world, PlayerCube cube, Location baseLocation, JavaPlugin plugin, DisplayPool displayPool) {
         this.world = world;
         this.cube = cube;
         this.baseLocation = baseLocation;
         this.plugin = plugin;
+        this.displayPool = displayPool;
         this.displayMap = new HashMap<>();
 
-        // PlayerCubeの蜂から高さオフセットを取得
+        // PlayerCubeのキャリアエンティティから高さオフセットを取得
         if (cube.getEntity() != null) {
             this.entityHeightOffset = cube.getEntity().getHeight();
         }
@@ -86,7 +90,7 @@ public class CubePreview {
             if (!displayMap.containsKey(pos)) {
                 BlockDisplay display = createPreviewPanel(pos, Material.LIGHT_BLUE_STAINED_GLASS);
                 displayMap.put(pos, display);
-                // PlayerCubeの蜂にマウント
+                // PlayerCubeのキャリアエンティティにマウント
                 if (cube.getEntity() != null) {
                     cube.getEntity().addPassenger(display);
                 }
@@ -187,17 +191,16 @@ public class CubePreview {
     }
 
     /**
-     * プレビューパネルを作成
+     * プレビューパネルを作成（プールから借りて配置）
      *
      * @param pos 2次元位置（X, Y）
      * @param material ブロックのマテリアル
-     * @return 作成されたBlockDisplay
+     * @return 配置したBlockDisplay
      */
     private BlockDisplay createPreviewPanel(Vector2i pos, Material material) {
-        // BlockDisplayをスポーン
-        BlockDisplay display = world.spawn(baseLocation, BlockDisplay.class);
-        display.setBlock(material.createBlockData());
-        display.setBrightness(new BlockDisplay.Brightness(15, 15));
+        // プールからBlockDisplayを借りる（キャリアエンティティにマウントするのでその位置に移動）
+        Location location = cube.getEntity() != null ? cube.getCarrierLocation() : baseLocation;
+        BlockDisplay display = displayPool.acquire(location, material);
 
         // Transformationを設定（直径0.4、厚み0.1）
         Transformation transformation = createPanelTransformation(pos, 0.4f, 0.1f);
@@ -215,7 +218,7 @@ public class CubePreview {
      */
     public void clear() {
         for (BlockDisplay display : displayMap.values()) {
-            display.remove();
+            displayPool.release(display);
         }
         displayMap.clear();
 
@@ -230,6 +233,14 @@ public class CubePreview {
         }
     }
 
+    /**
+     * プレビューをクリアして完了状態を戻す（リスタート時）
+     */
+    public void reset() {
+        clear();
+        isCompleted = false;
+    }
+
     /**
      * クリーンアップ（ゲーム終了時）
      */
@@ -0,0 +1,78 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import mods.kpw.runthroughhole.Main;
+
+/**
+ * ゲーム中の出来事をデータパックのファンクションタグとして直接呼び出すクラス
+ * データパックは毎tickスコアボードを監視せず、タグに登録したファンクションで出来事を受け取る
+ * （ファンクションはプレイヤーを実行者として、プレイヤーの位置で実行される）
+ * データパックからのstopGameは /runhole stop @s で受け取る（runhole_core は通知を前提にしているため、通知は無効にできない）
+ */
+public class DatapackBridge {
+
+    /**
+     * データパックに通知する出来事（タグ名は #runhole_core:event/<名前>）
+     */
+    public enum Event {
+        /** ゲーム開始時（リスタートを含む） */
+        GAME_START("game_start"),
+        /** 壁の穴に入ったとき */
+        WALL_PASSED("wall_passed"),
+        /** 壁の穴をすべてなぞったとき */
+        PERFECT_WALL("perfect_wall"),
+        /** ゲームオーバー時（runhole_end_typeに終了理由を設定済み） */
+        GAME_OVER("game_over"),
+        /** ゲームを終了したとき */
+        GAME_STOP("game_stop");
+
+        private final String tag;
+
+        Event(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    // ファンクションタグの名前空間
+    private static final String TAG_NAMESPACE = "runhole_core:event/";
+
+    private final JavaPlugin plugin;
+    private CommandSender sender; // 実行結果のメッセージを捨てるコマンド送信者
+
+    /**
+     * コンストラクタ
+     *
+     * @param plugin プラグイン
+     */
+    public DatapackBridge(JavaPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 出来事のファンクションタグをプレイヤーを実行者として呼び出す
+     *
+     * @param player プレイヤー
+     * @param event  出来事
+     */
+    public void fire(Player player, Event event) {
+        if (player == null || !player.isOnline()) {
+            return;
+        }
+
+        // タグがない場合のエラーなど、実行結果のメッセージはコンソールに出さない
+        if (sender == null) {
+            sender = plugin.getServer().createCommandSender(feedback -> {
+            });
+        }
+
+        try {
+            plugin.getServer().dispatchCommand(sender, "execute as " + player.getUniqueId()
+                    + " at @s run function #" + TAG_NAMESPACE + event.tag);
+        } catch (Exception e) {
+            Main.logger.warning("[DatapackBridge] ファンクションの呼び出しに失敗しました: " + event.tag + " " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.BlockDisplay;
+import org.bukkit.util.Transformation;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * プレビュー表示用BlockDisplayのプール
+ * セッション開始時にまとめてスポーンし、使わないものはスケール0で隠して再利用する
+ * （削除・再スポーンを繰り返さないことでエンティティのスポーン数を一定に保つ）
+ */
+public class DisplayPool {
+    // セッション開始時に事前スポーンする数
+    public static final int INITIAL_SIZE = 16;
+
+    private final World world;
+    private final Location parkLocation; // 未使用のBlockDisplayを置いておく位置
+    private RigEntities rig; // セッションのエンティティ管理（nullの場合は登録しない）
+
+    // 未使用のBlockDisplay
+    private final Deque<BlockDisplay> idle;
+    // このプールがスポーンしたすべてのBlockDisplay
+    private final List<BlockDisplay> all;
+
+    /**
+     * コンストラクタ
+     *
+     * @param world        ワールド
+     * @param parkLocation 未使用のBlockDisplayを置いておく位置
+     * @param initialSize  事前にスポーンする数
+     * @param rig          セッションのエンティティ管理（nullの場合は登録しない）
+     */
+    public DisplayPool(World world, Location parkLocation, int initialSize, RigEntities rig) {
+        this.world = world;
+        this.parkLocation = parkLocation.clone();
+        this.rig = rig;
+        this.idle = new ArrayDeque<>();
+        this.all = new ArrayList<>();
+
+        for (int i = 0; i < initialSize; i++) {
+            idle.push(spawnHidden());
+        }
+    }
+
+    /**
+     * 非表示状態のBlockDisplayをスポーン
+     *
+     * @return スポーンしたBlockDisplay
+     */
+    private BlockDisplay spawnHidden() {
+        // ワールドに追加する前に設定し、非表示のままスポーンさせる（見せるプレイヤーはRigEntitiesで決める）
+        BlockDisplay display = world.spawn(parkLocation, BlockDisplay.class, d -> {
+            d.setVisibleByDefault(false);
+            d.setPersistent(false);
+            d.setBrightness(new BlockDisplay.Brightness(15, 15));
+            d.setInterpolationDuration(0);
+            d.setInterpolationDelay(0);
+            d.setTransformation(createHiddenTransformation());
+        });
+        all.add(display);
+        if (rig != null) {
+            rig.add(display);
+        }
+        return display;
+    }
+
+    /**
+     * BlockDisplayを借りる
+     * 返却時はスケール0のまま渡すので、呼び出し側でTransformationを設定すること
+     *
+     * @param location 表示位置（nullの場合は移動しない）
+     * @param material ブロックのマテリアル
+     * @return 借りたBlockDisplay
+     */
+    public BlockDisplay acquire(Location location, Material material) {
+        BlockDisplay display = idle.poll();
+        // 使い切った場合のみ追加でスポーン（以後はプールに残り続ける）
+        if (display == null || !display.isValid()) {
+            display = spawnHidden();
+        }
+
+        if (location != null) {
+            display.teleport(location);
+        }
+        if (display.getBlock().getMaterial() != material) {
+            display.setBlock(material.createBlockData());
+        }
+        return display;
+    }
+
+    /**
+     * BlockDisplayを返却（スケール0にして非表示にする）
+     *
+     * @param display 返却するBlockDisplay
+     */
+    public void release(BlockDisplay display) {
+        if (display == null || !display.isValid()) {
+            return;
+        }
+
+        // 他のエンティティに乗っている場合は降ろす（次の利用でテレポートできるように）
+        if (display.isInsideVehicle()) {
+            display.leaveVehicle();
+        }
+
+        display.setInterpolationDuration(0);
+        display.setInterpolationDelay(0);
+        display.setTransformation(createHiddenTransformation());
+        idle.push(display);
+    }
+
+    /**
+     * セッションに割り当てる（プールのリグとして再利用する場合）
+     * すべてのBlockDisplayをセッションのエンティティとして登録する
+     *
+     * @param rig セッションのエンティティ管理
+     */
+    public void attach(RigEntities rig) {
+        this.rig = rig;
+        for (BlockDisplay display : all) {
+            rig.add(display);
+        }
+    }
+
+    /**
+     * セッションから外す（未使用のBlockDisplayを待機位置に戻す）
+     * 登録の解除はRigEntities側で行う
+     */
+    public void detach() {
+        this.rig = null;
+        all.removeIf(display -> !display.isValid());
+        idle.removeIf(display -> !display.isValid());
+        for (BlockDisplay display : idle) {
+            display.teleport(parkLocation);
+        }
+    }
+
+    /**
+     * スケール0（非表示）のTransformationを作成
+     *
+     * @return 非表示用のTransformation
+     */
+    static Transformation createHiddenTransformation() {
+        return new Transformation(
+                new Vector3f(0, 0, 0),
+                new Quaternionf(),
+                new Vector3f(0, 0, 0),
+                new Quaternionf());
+    }
+
+    /**
+     * クリーンアップ（ゲーム終了時、すべてのBlockDisplayを削除）
+     */
+    public void cleanup() {
+        for (BlockDisplay display : all) {
+            if (rig != null) {
+                rig.remove(display);
+            }
+            display.remove();
+        }
+        all.clear();
+        idle.clear();
+    }
+}
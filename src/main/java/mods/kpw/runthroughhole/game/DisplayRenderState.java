@@ -0,0 +1,102 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.Material;
+import org.bukkit.entity.BlockDisplay;
+import org.bukkit.util.Transformation;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+/**
+ * BlockDisplayに最後に送った表示状態を保持するクラス
+ * 変化したフィールドだけをBlockDisplayに反映し、変化がなければ何も送らない
+ */
+public class DisplayRenderState {
+    // 値が同じとみなす誤差
+    private static final float EPSILON = 1e-4f;
+    // 右回転は使用しないので常に単位クォータニオン
+    private static final Quaternionf IDENTITY = new Quaternionf();
+
+    private final BlockDisplay display;
+
+    // 最後に送った状態
+    private final Vector3f translation = new Vector3f();
+    private final Quaternionf leftRotation = new Quaternionf();
+    private final Vector3f scale = new Vector3f(1, 1, 1);
+    private int interpolationDuration = -1;
+    private Material material;
+    private boolean sent = false; // 一度でもTransformationを送ったか
+
+    public DisplayRenderState(BlockDisplay display) {
+        this.display = display;
+    }
+
+    /**
+     * BlockDisplayを取得
+     */
+    public BlockDisplay getDisplay() {
+        return display;
+    }
+
+    /**
+     * Transformationを更新（変化がある場合のみ送信）
+     * Interpolation時間は変わった場合のみ、Interpolation開始はTransformationを送るときのみ設定する
+     *
+     * @param tx                    TranslationのX
+     * @param ty                    TranslationのY
+     * @param tz                    TranslationのZ
+     * @param rotation              左回転
+     * @param sx                    スケールのX
+     * @param sy                    スケールのY
+     * @param sz                    スケールのZ
+     * @param interpolationDuration Interpolation時間（tick）
+     * @return 送信した場合はtrue
+     */
+    public boolean update(float tx, float ty, float tz, Quaternionf rotation, float sx, float sy, float sz,
+            int interpolationDuration) {
+        boolean translationChanged = !sent || !equals(translation, tx, ty, tz);
+        boolean rotationChanged = !sent || !equals(leftRotation, rotation);
+        boolean scaleChanged = !sent || !equals(scale, sx, sy, sz);
+
+        // 変化がなければ何も送らない
+        if (!translationChanged && !rotationChanged && !scaleChanged) {
+            return false;
+        }
+
+        if (this.interpolationDuration != interpolationDuration) {
+            display.setInterpolationDuration(interpolationDuration);
+            this.interpolationDuration = interpolationDuration;
+        }
+        // Interpolationを今のtickから開始
+        display.setInterpolationDelay(0);
+
+        translation.set(tx, ty, tz);
+        leftRotation.set(rotation);
+        scale.set(sx, sy, sz);
+        sent = true;
+
+        // 変わっていないフィールドはエンティティデータ側で同値として扱われ、パケットに含まれない
+        display.setTransformation(new Transformation(translation, leftRotation, scale, IDENTITY));
+        return true;
+    }
+
+    /**
+     * ブロックのマテリアルを更新（変化がある場合のみ送信）
+     *
+     * @param material マテリアル
+     */
+    public void setMaterial(Material material) {
+        if (this.material != material) {
+            display.setBlock(material.createBlockData());
+            this.material = material;
+        }
+    }
+
+    private static boolean equals(Vector3f v, float x, float y, float z) {
+        return Math.abs(v.x - x) < EPSILON && Math.abs(v.y - y) < EPSILON && Math.abs(v.z - z) < EPSILON;
+    }
+
+    private static boolean equals(Quaternionf a, Quaternionf b) {
+        // qと-qは同じ回転
+        return Math.abs(Math.abs(a.dot(b)) - 1f) < EPSILON;
+    }
+}
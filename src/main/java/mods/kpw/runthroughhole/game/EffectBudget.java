@@ -0,0 +1,90 @@
+package mods.kpw.runthroughhole.game;
+
+/**
+ * ゲームの演出（パーティクル）の1tickあたりの予算と、見る人との距離による詳細度（LOD）
+ * 全セッションで1つを共有し、プレイヤーごとに送るパーティクルの数を予算から差し引く
+ * （大勢が同時にゲームオーバーになっても、1tickに送るパーティクルは予算までに抑えられる）
+ * 本人には予算を使い切った後も最低数だけは送る（後からゲームオーバーになった人の演出が消えないように）
+ */
+public class EffectBudget {
+    // 詳細度を下げたときの数の割合（1/REDUCED_DIVISOR、最低1つ）
+    private static final int REDUCED_DIVISOR = 4;
+
+    private final int particlesPerTick; // 1tickあたりに送るパーティクルの上限
+    private final double fullDetailDistanceSquared; // この距離以内はそのままの数で送る（2乗）
+    private final double maxDistanceSquared; // この距離を超える場合は送らない（2乗）
+    private final boolean ownerAndSpectatorsOnly; // 全員に見せる設定でも、本人とスペクテーターにだけ送る
+    private final int ownerMinimum; // 予算が足りなくても本人に送る最低数
+
+    private int remaining; // このtickに残っている予算
+
+    /**
+     * コンストラクタ
+     *
+     * @param particlesPerTick       1tickあたりに送るパーティクルの上限
+     * @param fullDetailDistance     この距離（ブロック）以内はそのままの数で送る
+     * @param maxDistance            この距離（ブロック）を超える場合は送らない
+     * @param ownerAndSpectatorsOnly 全員に見せる設定でも、本人とスペクテーターにだけ送る
+     * @param ownerMinimum           予算が足りなくても本人に送る最低数
+     */
+    public EffectBudget(int particlesPerTick, double fullDetailDistance, double maxDistance,
+            boolean ownerAndSpectatorsOnly, int ownerMinimum) {
+        this.particlesPerTick = Math.max(0, particlesPerTick);
+        this.fullDetailDistanceSquared = fullDetailDistance * fullDetailDistance;
+        this.maxDistanceSquared = maxDistance * maxDistance;
+        this.ownerAndSpectatorsOnly = ownerAndSpectatorsOnly;
+        this.ownerMinimum = Math.max(0, ownerMinimum);
+        this.remaining = this.particlesPerTick;
+    }
+
+    /**
+     * tickの始めに予算を戻す（ゲームループから毎tick呼び出される）
+     */
+    public void beginTick() {
+        remaining = particlesPerTick;
+    }
+
+    /**
+     * 全員に見せる設定でも、本人とスペクテーターにだけ送るかどうか
+     *
+     * @return 絞る場合はtrue
+     */
+    public boolean isOwnerAndSpectatorsOnly() {
+        return ownerAndSpectatorsOnly;
+    }
+
+    /**
+     * 1人のプレイヤーに送るパーティクルの数を決め、予算から差し引く
+     *
+     * @param count           演出のパーティクルの数
+     * @param distanceSquared 演出の位置とプレイヤーの距離（2乗）
+     * @return 送る数（0の場合は送らない）
+     */
+    public int acquire(int count, double distanceSquared) {
+        if (distanceSquared > maxDistanceSquared) {
+            return 0;
+        }
+
+        // 遠いプレイヤーには数を減らして送る
+        int detailed = distanceSquared <= fullDetailDistanceSquared
+                ? count
+                : Math.max(1, count / REDUCED_DIVISOR);
+
+        int granted = Math.min(detailed, remaining);
+        remaining -= granted;
+        return granted;
+    }
+
+    /**
+     * 本人に送るパーティクルの数を決め、予算から差し引く（距離は見ない）
+     * 予算が残っていない場合も最低数までは送る
+     *
+     * @param count 演出のパーティクルの数
+     * @return 送る数
+     */
+    public int acquireOwner(int count) {
+        int granted = Math.min(count, Math.max(remaining, ownerMinimum));
+        remaining = Math.max(0, remaining - granted);
+        return granted;
+    }
+}
@@ -0,0 +1,215 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.joml.Vector2i;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * キューブの前方に壁を順に生成し続けるエンドレスコース
+ * 常に一定枚数の壁を前方に用意し、カメラより後ろに過ぎた壁は削除するため、どこまで進んでもメモリと処理量は一定
+ * 壁は仮想の壁（VirtualCourse）として送るか、BlockPlacerでワールドに少しずつ設置する
+ * ワールドに設置する場合は置き換える前のブロックを覚えておき、壁を削除するときに元に戻す
+ */
+public class EndlessCourse {
+    // カメラよりこの距離だけ後ろに過ぎた壁を削除する（ブロック）
+    private static final double REMOVE_MARGIN = 2.0;
+
+    private final WallGenerator generator;
+    private final WallIndex wallIndex; // セッションの壁の一覧（生成した壁を直接追加する）
+    private final int wallsAhead; // 前方に用意しておく壁の枚数
+    private final int spacing; // 壁の間隔（ブロック）
+    private final int firstZ; // 最初の壁のZ座標
+    private int nextZ; // 次に生成する壁のZ座標
+
+    // 仮想の壁の場合（nullの場合はワールドに設置する）
+    private final VirtualCourse virtualCourse;
+
+    // ワールドに設置する場合
+    private final World world;
+    private final BlockPlacer placer;
+    private final Material wallMaterial;
+    private final int centerX;
+    private final int centerY;
+    private final int radius;
+
+    // ワールドに設置した壁の位置の元のブロック（壁のZ座標ごと）
+    private final Map<Integer, Original> originals = new HashMap<>();
+
+    // 検索用（使い回し）
+    private final Vector2i lookup = new Vector2i();
+
+    /**
+     * 壁を設置する前の、壁の範囲の元のブロック
+     * 元に戻し終わるまでは残しておき、その間に同じ位置へ設置し直す場合（リスタート時）は読み直さずに使う
+     */
+    private static class Original {
+        final BlockData[] blocks; // (x - 左端) * 幅 + (y - 下端) の順
+        boolean placed; // 壁を設置している（元に戻していない）
+        Original(BlockData[] blocks) {
+            this.blocks = blocks;
+        }
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param generator     壁の生成
+     * @param wallIndex     セッションの壁の一覧（空の状態で渡す）
+     * @param firstZ        最初の壁のZ座標
+     * @param wallsAhead    前方に用意しておく壁の枚数
+     * @param spacing       壁の間隔（ブロック）
+     * @param virtualCourse 仮想の壁（nullの場合はワールドに設置する）
+     * @param world         ワールド
+     * @param placer        ワールドへのブロック設置
+     * @param wallMaterial  壁のマテリアル
+     * @param centerX       壁の中心のX座標
+     * @param centerY       壁の中心のY座標
+     * @param radius        壁の半径（ブロック）
+     */
+    public EndlessCourse(WallGenerator generator, WallIndex wallIndex, int firstZ, int wallsAhead, int spacing,
+            VirtualCourse virtualCourse, World world, BlockPlacer placer, Material wallMaterial,
+            int centerX, int centerY, int radius) {
+        this.generator = generator;
+        this.wallIndex = wallIndex;
+        this.firstZ = firstZ;
+        this.nextZ = firstZ;
+        this.wallsAhead = Math.max(1, wallsAhead);
+        this.spacing = spacing;
+        this.virtualCourse = virtualCourse;
+        this.world = world;
+        this.placer = placer;
+        this.wallMaterial = wallMaterial;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.radius = radius;
+    }
+
+    /**
+     * キューブとカメラの位置に合わせて壁を生成・削除（毎tick呼び出される）
+     *
+     * @param cubeZ   キューブのZ座標
+     * @param cameraZ カメラのZ座標
+     * @return 壁の一覧が変わった場合はtrue
+     */
+    public boolean update(double cubeZ, double cameraZ) {
+        boolean changed = false;
+
+        // カメラより後ろに過ぎた壁を削除
+        for (WallIndex.Wall wall : wallIndex.removeBefore(cameraZ - REMOVE_MARGIN)) {
+            if (virtualCourse != null) {
+                virtualCourse.removeWall(wall.z);
+            } else {
+                placeWall(wall, false);
+            }
+            changed = true;
+        }
+
+        // キューブの前方の壁が足りなければ生成
+        while (countAhead(cubeZ) < wallsAhead) {
+            WallIndex.Wall wall = generator.next(nextZ);
+            nextZ += spacing;
+            wallIndex.add(wall);
+            if (virtualCourse != null) {
+                virtualCourse.addWall(wall);
+            } else {
+                placeWall(wall, true);
+            }
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    /**
+     * キューブより前方にある壁の枚数
+     */
+    private int countAhead(double cubeZ) {
+        int count = 0;
+        for (int i = wallIndex.getWalls().size() - 1; i >= 0; i--) {
+            if (wallIndex.getWalls().get(i).z <= cubeZ) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 壁をワールドに設置または削除（BlockPlacerで少しずつ反映）
+     *
+     * @param wall    壁
+     * @param visible trueなら設置、falseなら元のブロックに戻す
+     */
+    private void placeWall(WallIndex.Wall wall, boolean visible) {
+        int size = radius * 2 + 1;
+        Original original = originals.get(wall.z);
+        if (visible) {
+            // 設置する前に元のブロックを覚えておく（元に戻している途中なら覚えているものを使う）
+            if (original == null) {
+                BlockData[] blocks = new BlockData[size * size];
+                for (int x = centerX - radius; x <= centerX + radius; x++) {
+                    for (int y = centerY - radius; y <= centerY + radius; y++) {
+                        blocks[(x - centerX + radius) * size + (y - centerY + radius)] =
+                                world.getBlockAt(x, y, wall.z).getBlockData();
+                    }
+                }
+                original = new Original(blocks);
+                originals.put(wall.z, original);
+            }
+            original.placed = true;
+        } else if (original == null) {
+            return;
+        } else {
+            original.placed = false;
+        }
+
+        BlockData wallData = wallMaterial.createBlockData();
+        BlockPlacer.Batch batch = placer.batch(world);
+        for (int x = centerX - radius; x <= centerX + radius; x++) {
+            for (int y = centerY - radius; y <= centerY + radius; y++) {
+                if (!wall.holes.contains(lookup.set(x, y))) {
+                    batch.set(x, y, wall.z, visible
+                            ? wallData
+                            : original.blocks[(x - centerX + radius) * size + (y - centerY + radius)]);
+                }
+            }
+        }
+
+        if (visible) {
+            batch.submit();
+        } else {
+            // 元に戻し終わったら忘れる（その前に設置し直された場合は残す）
+            Original restored = original;
+            batch.submit().thenRun(() -> {
+                if (!restored.placed) {
+                    originals.remove(wall.z, restored);
+                }
+            });
+        }
+    }
+
+    /**
+     * 残っている壁をすべて削除し、最初の壁から生成し直せるようにする（リスタート時）
+     */
+    public void reset() {
+        clear();
+        nextZ = firstZ;
+    }
+
+    /**
+     * 残っている壁をすべて削除（ゲーム終了時）
+     */
+    public void clear() {
+        for (WallIndex.Wall wall : wallIndex.removeBefore(Double.MAX_VALUE)) {
+            if (virtualCourse != null) {
+                virtualCourse.removeWall(wall.z);
+            } else {
+                placeWall(wall, false);
+            }
+        }
+    }
+}
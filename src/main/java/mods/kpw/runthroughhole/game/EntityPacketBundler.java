@@ -0,0 +1,212 @@
+package mods.kpw.runthroughhole.game;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolLibrary;
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.ListenerPriority;
+import com.comphenix.protocol.events.PacketAdapter;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.events.PacketEvent;
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import mods.kpw.runthroughhole.Main;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ゲーム用エンティティ（キューブ・カメラ・プレビュー）の更新パケットを1tick分まとめて送るクラス
+ * tick中に送られる移動・メタデータ・マウントのパケットを保留し、tickの最後に視聴者ごとに1つのバンドルパケットで送信する
+ * （クライアントがキューブ・カメラ・プレビューの変化を同じフレームで反映するため、ずれが起きない）
+ * ProtocolLibは送信の監視をnettyのスレッドから呼ぶことがあるため、保留はスレッドを問わず行い、視聴者ごとに同期する
+ */
+public class EntityPacketBundler implements Listener {
+    // まとめる対象のパケット（すべて先頭のintがエンティティID）
+    private static final PacketType[] BUNDLED_PACKETS = {
+            PacketType.Play.Server.ENTITY_TELEPORT,
+            PacketType.Play.Server.REL_ENTITY_MOVE,
+            PacketType.Play.Server.REL_ENTITY_MOVE_LOOK,
+            PacketType.Play.Server.ENTITY_LOOK,
+            PacketType.Play.Server.ENTITY_VELOCITY,
+            PacketType.Play.Server.ENTITY_METADATA,
+            PacketType.Play.Server.MOUNT,
+    };
+
+    // バンドルパケットに入れられる最大数（クライアントの上限）
+    private static final int MAX_BUNDLE_SIZE = 4096;
+
+    private final JavaPlugin plugin;
+    private final ProtocolManager protocolManager;
+    private PacketAdapter packetAdapter;
+
+    // 対象エンティティのID（ProtocolLibのスレッドからも参照されるため並行セット）
+    private final Set<Integer> entityIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 1人の視聴者の保留中パケット（監視のスレッドとメインスレッドの両方から操作されるため、このオブジェクトで同期する）
+     * 上限に達したバンドルは閉じて次のバンドルに続け、送信時は古い順に送る（パケットの順序を崩さない）
+     */
+    private static class PendingPackets {
+        final List<List<PacketContainer>> bundles = new ArrayList<>();
+
+        void add(PacketContainer packet) {
+            List<PacketContainer> current = bundles.isEmpty() ? null : bundles.get(bundles.size() - 1);
+            if (current == null || current.size() >= MAX_BUNDLE_SIZE) {
+                current = new ArrayList<>();
+                bundles.add(current);
+            }
+            current.add(packet);
+        }
+    }
+
+    // 視聴者ごとの保留中パケット
+    private final Map<UUID, PendingPackets> pending = new ConcurrentHashMap<>();
+
+    public EntityPacketBundler(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.protocolManager = ProtocolLibrary.getProtocolManager();
+    }
+
+    /**
+     * パケットの監視を開始
+     */
+    public void start() {
+        packetAdapter = new PacketAdapter(plugin, ListenerPriority.HIGHEST, BUNDLED_PACKETS) {
+            @Override
+            public void onPacketSending(PacketEvent event) {
+                onSending(event);
+            }
+        };
+        protocolManager.addPacketListener(packetAdapter);
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    /**
+     * パケットの監視を停止（保留中のパケットはすべて送信）
+     */
+    public void stop() {
+        if (packetAdapter != null) {
+            protocolManager.removePacketListener(packetAdapter);
+            packetAdapter = null;
+        }
+        HandlerList.unregisterAll(this);
+        flush();
+        entityIds.clear();
+    }
+
+    /**
+     * エンティティをまとめる対象に追加
+     *
+     * @param entity 対象のエンティティ（nullの場合は何もしない）
+     */
+    public void register(Entity entity) {
+        if (entity != null) {
+            entityIds.add(entity.getEntityId());
+        }
+    }
+
+    /**
+     * エンティティをまとめる対象から外す
+     *
+     * @param entity 対象のエンティティ（nullの場合は何もしない）
+     */
+    public void unregister(Entity entity) {
+        if (entity != null) {
+            entityIds.remove(entity.getEntityId());
+        }
+    }
+
+    /**
+     * 送信されるパケットを確認し、対象エンティティのものであれば保留する
+     * メインスレッド・nettyのスレッドのどちらから呼ばれてもよい
+     */
+    private void onSending(PacketEvent event) {
+        if (entityIds.isEmpty() || event.isPlayerTemporary()) {
+            return;
+        }
+
+        PacketContainer packet = event.getPacket();
+        int entityId;
+        try {
+            entityId = packet.getIntegers().read(0);
+        } catch (Exception e) {
+            return;
+        }
+        if (!entityIds.contains(entityId)) {
+            return;
+        }
+
+        PendingPackets packets = pending.computeIfAbsent(event.getPlayer().getUniqueId(), k -> new PendingPackets());
+        synchronized (packets) {
+            packets.add(packet);
+            event.setCancelled(true);
+        }
+    }
+
+    /**
+     * tickの最後に保留中のパケットを送信
+     */
+    @EventHandler
+    public void onTickEnd(ServerTickEndEvent event) {
+        flush();
+    }
+
+    /**
+     * 保留中のパケットを視聴者ごとにバンドルで送信（上限を超えた分は次のバンドルで続けて送る）
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Iterator<Map.Entry<UUID, PendingPackets>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, PendingPackets> entry = iterator.next();
+            Player viewer = Bukkit.getPlayer(entry.getKey());
+            if (viewer == null || !viewer.isOnline()) {
+                // ログアウトしたプレイヤーの分は捨てる
+                iterator.remove();
+                continue;
+            }
+
+            // 取り出している間に届いたパケットは次のtickのバンドルに入る（取り出した分より後に送られる）
+            List<List<PacketContainer>> bundles;
+            PendingPackets packets = entry.getValue();
+            synchronized (packets) {
+                if (packets.bundles.isEmpty()) {
+                    continue;
+                }
+                bundles = new ArrayList<>(packets.bundles);
+                packets.bundles.clear();
+            }
+
+            try {
+                for (List<PacketContainer> bundlePackets : bundles) {
+                    if (bundlePackets.size() == 1) {
+                        // 1つだけならバンドルにしない
+                        protocolManager.sendServerPacket(viewer, bundlePackets.get(0), false);
+                    } else {
+                        PacketContainer bundle = new PacketContainer(PacketType.Play.Server.BUNDLE);
+                        bundle.getPacketBundles().write(0, bundlePackets);
+                        // 監視を通さずに送信（再度保留されないように）
+                        protocolManager.sendServerPacket(viewer, bundle, false);
+                    }
+                }
+            } catch (Exception e) {
+                Main.logger.warning("[Bundle] パケット送信エラー: " + e.getMessage());
+            }
+        }
+    }
+}
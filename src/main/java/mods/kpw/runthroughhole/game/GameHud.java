@@ -0,0 +1,147 @@
+package mods.kpw.runthroughhole.game;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.title.Title;
+import net.kyori.adventure.title.TitlePart;
+import org.bukkit.Bukkit;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * プレイヤーのHUD（壁接近警告のボスバーと視点ガイドのタイトル）
+ * 値は毎tick受け取るが、前回送った値と比べて変化したときだけ送信する
+ * ボスバーの進行度は決まった段階数に丸め、ガイドは1tickに1回だけ反映する
+ */
+public class GameHud {
+    // ガイドのタイトルを表示し続ける時間（tick）
+    private static final int GUIDE_STAY_TICKS = 100;
+    private static final Title.Times GUIDE_TIMES = Title.Times.times(
+            Duration.ZERO, Duration.ofMillis(GUIDE_STAY_TICKS * 50L), Duration.ofSeconds(1));
+    private static final Title.Times HIDE_TIMES = Title.Times.times(
+            Duration.ZERO, Duration.ZERO, Duration.ofSeconds(1));
+
+    // ガイドの文字ごとのComponent（使い回す）
+    private static final Map<String, Component> GUIDE_COMPONENTS = new HashMap<>();
+
+    private final Player player;
+    private final int progressSteps; // ボスバーの進行度の段階数
+
+    // 壁接近警告のボスバー（送信済みの状態）
+    private BossBar warningBar;
+    private int sentStep = -1;
+    private boolean sentVisible = false;
+
+    // 視点ガイド
+    private String guide; // 表示したいガイド（null = 非表示）
+    private String sentGuide; // 送信済みのガイド
+    private boolean titleShowing = false; // ガイドのタイトルを表示中か（非表示にした・まだ送っていない場合はfalse）
+    private int guideShownTick; // タイトルを送った（表示し始めた）tick
+
+    /**
+     * コンストラクタ
+     *
+     * @param player        プレイヤー
+     * @param progressSteps ボスバーの進行度の段階数
+     */
+    public GameHud(Player player, int progressSteps) {
+        this.player = player;
+        this.progressSteps = Math.max(1, progressSteps);
+    }
+
+    /**
+     * 壁接近警告を更新（毎tick呼び出される）
+     *
+     * @param distance 前方の通れない壁までの距離（PlayerCubeが前進時に計算したもの、壁がない・通れる場合は負）
+     */
+    public void updateWarning(double distance) {
+        // 3ブロック以内 & 通れない壁の場合に表示
+        boolean visible = distance >= 0 && distance <= 3;
+        if (!visible) {
+            if (sentVisible) {
+                warningBar.setVisible(false);
+                sentVisible = false;
+            }
+            return;
+        }
+
+        // ボスバーがまだない場合は作成
+        if (warningBar == null) {
+            warningBar = Bukkit.createBossBar("§c§l⚠ 壁接近！ ⚠", BarColor.RED, BarStyle.SOLID);
+            warningBar.setProgress(0.0);
+            warningBar.addPlayer(player);
+            sentStep = 0;
+            sentVisible = true;
+        }
+
+        // 距離3ブロック → 0%、距離0.0ブロック → 100%（段階数に丸める）
+        double progress = Math.max(0.0, Math.min(1.0, 1.0 - ((distance - 1) / 3.0)));
+        int step = (int) Math.round(progress * progressSteps);
+        if (step != sentStep) {
+            warningBar.setProgress((double) step / progressSteps);
+            sentStep = step;
+        }
+        if (!sentVisible) {
+            warningBar.setVisible(true);
+            sentVisible = true;
+        }
+    }
+
+    /**
+     * 表示したいガイドを設定（送信はflushで行う）
+     *
+     * @param guide ガイドの文字（nullの場合は非表示）
+     */
+    public void setGuide(String guide) {
+        this.guide = guide;
+    }
+
+    /**
+     * ガイドの変化を送信（毎tick呼び出される、1tickに何度変わっても送信は1回）
+     * タイトルが表示中の間はサブタイトルだけを送り直す
+     *
+     * @param currentTick 現在のtick
+     */
+    public void flush(int currentTick) {
+        if (guide == null ? sentGuide == null : guide.equals(sentGuide)) {
+            return;
+        }
+
+        if (guide == null) {
+            // ガイドを非表示
+            player.showTitle(Title.title(Component.empty(), Component.empty(), HIDE_TIMES));
+            titleShowing = false;
+        } else {
+            Component component = GUIDE_COMPONENTS.computeIfAbsent(guide, Component::text);
+            if (titleShowing && currentTick - guideShownTick < GUIDE_STAY_TICKS) {
+                // タイトル表示中はサブタイトルの差し替えだけでよい
+                player.sendTitlePart(TitlePart.SUBTITLE, component);
+            } else {
+                player.showTitle(Title.title(Component.empty(), component, GUIDE_TIMES));
+                titleShowing = true;
+                guideShownTick = currentTick;
+            }
+        }
+        sentGuide = guide;
+    }
+
+    /**
+     * ボスバーを削除し、送信済みの状態を忘れる（ゲーム終了時・リスタート時）
+     */
+    public void clear() {
+        if (warningBar != null) {
+            warningBar.removeAll();
+            warningBar = null;
+        }
+        sentStep = -1;
+        sentVisible = false;
+        guide = null;
+        sentGuide = null;
+        titleShowing = false;
+    }
+}
@@ -5,20 +5,20 @@ import org.bukkit.GameMode;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.Particle;
-import org.bukkit.boss.BarColor;
-import org.bukkit.boss.BarStyle;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitTask;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
-import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.format.NamedTextColor;
-import net.kyori.adventure.title.Title;
-
-import java.time.Duration;
+import mods.kpw.runthroughhole.Main;
 import mods.kpw.runthroughhole.player.PlayerDataManager;
 import mods.kpw.runthroughhole.player.PlayerData;
 
@@ -31,10 +31,53 @@ public class GameManager {
     private final JavaPlugin plugin;
     private final PlayerDataManager playerDataManager;
     private BukkitTask gameLoopTask;
+    private final EntityPacketBundler packetBundler; // ゲーム用エンティティの更新パケットのまとめ送信
+    private int loopTick = 0; // ゲームループのtick数
+    private final BlockPlacer blockPlacer; // ワールドへのブロック設置（1tickあたりの時間予算つき）
+    private final ChunkPreloader chunkPreloader; // キューブの前方のチャンクの先読み
+    private final GameWorlds gameWorlds; // ゲーム専用ワールド（練習・エンドレスモード用）
+    private final RigPool rigPool; // 事前にスポーンしておくキューブとカメラのエンティティ一式
+    private final List<BatchStart> batchStarts = new ArrayList<>(); // 準備中のまとめて開始
+    private final DatapackBridge datapackBridge; // データパックへの出来事の通知
+    private final ScoreRules scoreRules; // スコアの計算ルール
+    private final EffectBudget effectBudget; // 演出（パーティクル）の1tickあたりの予算と詳細度
+
+    // 先読みする範囲のX方向の幅（キューブの開始位置からの片側、ブロック）
+    private static final int PRELOAD_HALF_WIDTH = 16;
+    // 開始前にチャンクの読み込みを待つ最大のtick数（超えたら読み込みを待たずに開始する）
+    private static final int CHUNK_WAIT_TIMEOUT_TICKS = 100;
+
+    // レーンモードで共有するコースの壁の一覧（コースの開始位置ごと）
+    private final Map<String, WallIndex> sharedWallIndexes = new HashMap<>();
+    // レーンモードで全員が走るコースの開始位置（誰も遊んでいない間はnull）
+    private Location laneOrigin;
+
+    // ゲーム用エンティティを見せるプレイヤーを計算し直す間隔（tick）
+    private static final int VISIBILITY_REFRESH_INTERVAL = 20;
+
+    // スコアボードに変更をまとめて書き込む間隔（tick）
+    private final int scoreFlushInterval;
 
     public GameManager(JavaPlugin plugin, PlayerDataManager playerDataManager) {
         this.plugin = plugin;
         this.playerDataManager = playerDataManager;
+        this.packetBundler = new EntityPacketBundler(plugin);
+        this.chunkPreloader = new ChunkPreloader(plugin);
+        this.rigPool = new RigPool(plugin, chunkPreloader, plugin.getConfig().getInt("rig-pool.size", 4));
+        this.gameWorlds = new GameWorlds(plugin,
+                plugin.getConfig().getString("game-worlds.name", "runhole_game"),
+                plugin.getConfig().getInt("game-worlds.lane-spacing", 64),
+                plugin.getConfig().getInt("game-worlds.idle-seconds", 60));
+        this.blockPlacer = new BlockPlacer(plugin.getConfig().getDouble("block-placer.tick-budget-ms", 2.0));
+        this.scoreFlushInterval = Math.max(1, plugin.getConfig().getInt("scoreboard.flush-interval", 1));
+        this.scoreRules = ScoreRules.fromConfig(plugin.getConfig().getConfigurationSection("scoring"));
+        this.datapackBridge = new DatapackBridge(plugin);
+        this.effectBudget = new EffectBudget(
+                plugin.getConfig().getInt("effects.particle-budget", 400),
+                plugin.getConfig().getDouble("effects.full-detail-distance", 16),
+                plugin.getConfig().getDouble("effects.max-distance", 48),
+                plugin.getConfig().getBoolean("effects.owner-and-spectators-only", true),
+                plugin.getConfig().getInt("effects.owner-minimum", 8));
 
         // スコアボードのObjectiveを登録（プラグイン初期化時に1回だけ）
         GameScoreTracker.registerObjectives();
@@ -44,18 +87,51 @@ public class GameManager {
      * ゲームループを開始する
      */
     public void startGameLoop() {
+        // ゲーム用エンティティの更新パケットをtickごとにまとめて送信
+        packetBundler.start();
+
         // 自動前進タスクを開始（1tickごと）
         gameLoopTask = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+            boolean refreshVisibility = ++loopTick % VISIBILITY_REFRESH_INTERVAL == 0;
+
+            // このtickの演出の予算を戻す
+            effectBudget.beginTick();
+
+            // 誰も使っていないゲーム専用ワールドをアンロード
+            if (refreshVisibility) {
+                gameWorlds.tickIdle(VISIBILITY_REFRESH_INTERVAL);
+
+                // スコアボードが作り直されていたらObjectiveを取得し直す
+                GameScoreTracker.validateObjectives();
+            }
+
+            // 予約されたブロックを時間予算内で設置
+            blockPlacer.tick();
+
+            // ゲーム中のワールドで未使用のリグが足りなければ1つだけスポーン（スポーンを複数tickに分散）
+            rigPool.tick();
+
+            // まとめて開始の準備を進める
+            tickBatchStarts();
+
             for (PlayerData data : playerDataManager.getAllPlayerData()) {
-                // データパックからのstopGameリクエストをチェック
-                Player player = data.player;
-                if (player != null && data.scoreTracker.getScore("runhole_stop_request") == 1) {
-                    data.scoreTracker.setScore("runhole_stop_request", 0);
-                    stopGame(player, GameScoreTracker.END_TYPE_COMMAND_STOP);
-                    continue;
+                // 1人で始めたゲームは、先読みしたチャンクが読み込まれたら開始
+                if (data.isWaitingForStart && data.beginWhenReady && isChunkWindowReady(data)) {
+                    beginGame(data);
                 }
 
-                if (data.cube != null && !data.isGameOver) {
+                // ゲーム用エンティティを見せるプレイヤーを定期的に更新
+                if (refreshVisibility && data.rig != null) {
+                    data.rig.refreshViewers();
+                }
+
+                // データパックからのstopGameリクエストは /runhole stop @s で受け取る
+                Player player = data.player;
+
+                if (data.cube != null && !data.isGameOver && !data.isWaitingForStart) {
+                    // ゲーム時間を進める（スコアボードへは一定間隔でのみ書き込む）
+                    data.scoreTracker.tickGameTime();
+
                     // キューブを前進
                     data.cube.autoForward();
                     data.cube.handleContinuousBoosting(data.preview);
@@ -65,6 +141,14 @@ public class GameManager {
                             .collect(Collectors.toList());
 
                     if (!collidedBlocks.isEmpty()) {
+                        // 練習モードではチェックポイントからその場で再開
+                        if (data.courseMode == CourseMode.PRACTICE
+                                && plugin.getConfig().getBoolean("practice.respawn-on-collision", true)) {
+                            resetSession(data, data.cube.getCheckpointZ());
+                            data.sounds.add(GameSound.RESPAWN);
+                            continue;
+                        }
+
                         // プレイヤーを取得
                         if (player != null) {
                             gameOver(data, collidedBlocks, GameScoreTracker.END_TYPE_GAME_OVER);
@@ -72,6 +156,34 @@ public class GameManager {
                         continue;
                     }
 
+                    // 前方のチャンクを先読みし、カメラより後ろのチャンクは解放
+                    if (data.chunkWindow != null) {
+                        data.chunkWindow.update(data.cube.getCurrentZ(),
+                                data.cube.getCurrentZ() - CubeCamera.CAMERA_DISTANCE_BEHIND);
+                    }
+
+                    // エンドレスモードの壁を生成・削除し、カメラの経路を作り直す
+                    if (data.endlessCourse != null && data.camera != null
+                            && data.endlessCourse.update(data.cube.getCurrentZ(),
+                                    data.cube.getCurrentZ() - CubeCamera.CAMERA_DISTANCE_BEHIND)
+                            && plugin.getConfig().getBoolean("camera.follow-path", true)) {
+                        data.camera.usePath(data.wallIndex);
+                    }
+
+                    // 読み込まれたチャンクの分だけコースの壁の走査を進め、壁が増えたらカメラの経路を作り直す
+                    // （レーンで共有している一覧は他のセッションが走査を進めることもあるため、壁の数で判断する）
+                    if (data.wallIndex != null && data.camera != null) {
+                        data.wallIndex.scanLoaded();
+                        if (plugin.getConfig().getBoolean("camera.follow-path", true)) {
+                            data.camera.updatePath(data.wallIndex);
+                        }
+                    }
+
+                    // 仮想の壁を近づいた分だけ送る
+                    if (data.virtualCourse != null) {
+                        data.virtualCourse.update(data.cube.getCurrentZ());
+                    }
+
                     // カメラを更新
                     if (data.camera != null) {
                         data.camera.update();
@@ -87,55 +199,41 @@ public class GameManager {
                         data.cubePreview.update(data.tracingManager);
                     }
 
-                    // 壁接近警告をチェック
-                    updateWarningBossBar(data);
+                    // 壁接近警告と視点ガイドを更新
+                    updateHud(data);
+                }
+            }
+
+            // このtickのスコアの変更をまとめてスコアボードに書き込む
+            if (loopTick % scoreFlushInterval == 0) {
+                for (PlayerData data : playerDataManager.getAllPlayerData()) {
+                    if (data.scoreTracker != null) {
+                        data.scoreTracker.flush();
+                    }
+                }
+            }
+
+            // このtickに予約された効果音を鳴らす（セッションごと・種類ごとに1回）
+            for (PlayerData data : playerDataManager.getAllPlayerData()) {
+                if (data.sounds != null) {
+                    data.sounds.flush();
                 }
             }
         }, 1L, 1L); // 1tick遅延、1tickごとに実行
     }
 
     /**
-     * 壁接近警告ボスバーを更新
+     * HUD（壁接近警告ボスバーと視点ガイド）を更新
+     * 壁との距離は前進時に計算したものを使い、変化したときだけ送信する
      *
      * @param data プレイヤーデータ
      */
-    private void updateWarningBossBar(PlayerData data) {
-        Player player = data.player;
-        if (player == null || data.cube == null) {
+    private void updateHud(PlayerData data) {
+        if (data.hud == null || data.cube == null) {
             return;
         }
-
-        // 警告が必要かチェック
-        boolean shouldWarn = data.cube.shouldShowWarning();
-
-        if (shouldWarn) {
-            // ボスバーがまだない場合は作成
-            if (data.warningBossBar == null) {
-                data.warningBossBar = Bukkit.createBossBar(
-                        "§c§l⚠ 壁接近！ ⚠",
-                        BarColor.RED,
-                        BarStyle.SOLID);
-                data.warningBossBar.setProgress(0.0);
-                data.warningBossBar.addPlayer(player);
-            }
-
-            // 距離に応じてボスバーの進行度を更新
-            double distance = data.cube.getDistanceToNextWall();
-            if (distance >= 0) {
-                // 距離3ブロック → 0%、距離0.0ブロック → 100%
-                double progress = 1.0 - ((distance - 1) / 3.0);
-                progress = Math.max(0.0, Math.min(1.0, progress)); // 0.0～1.0にクランプ
-                data.warningBossBar.setProgress(progress);
-            }
-
-            // ボスバーを表示
-            data.warningBossBar.setVisible(true);
-        } else {
-            // 警告不要の場合はボスバーを非表示
-            if (data.warningBossBar != null) {
-                data.warningBossBar.setVisible(false);
-            }
-        }
+        data.hud.updateWarning(data.cube.getLastDistanceToWall());
+        data.hud.flush(loopTick);
     }
 
     /**
@@ -146,6 +244,19 @@ public class GameManager {
             gameLoopTask.cancel();
             gameLoopTask = null;
         }
+        packetBundler.stop();
+
+        // 設置しきれていないブロックを反映（コースの削除が途中で止まらないように）
+        blockPlacer.flush();
+    }
+
+    /**
+     * ワールドへのブロック設置を取得（コースの生成・リセット用）
+     *
+     * @return ブロック設置
+     */
+    public BlockPlacer getBlockPlacer() {
+        return blockPlacer;
     }
 
     /**
@@ -166,9 +277,157 @@ public class GameManager {
      * @param pattern ブロックパターン（3x3x3の配列）
      */
     public void startGame(Player player, boolean[][][] pattern) {
+        startGame(player, pattern, CourseMode.WORLD);
+    }
+
+    /**
+     * ゲーム開始処理
+     *
+     * @param player   プレイヤー
+     * @param pattern  ブロックパターン（3x3x3の配列）
+     * @param mode     コースの種類
+     */
+    public void startGame(Player player, boolean[][][] pattern, CourseMode mode) {
+        PlayerData playerData = prepareGame(player, pattern, mode);
+        if (playerData != null) {
+            // 先読みしたチャンクが読み込まれてからゲームループで開始する
+            playerData.beginWhenReady = true;
+        }
+    }
+
+    /**
+     * 複数のプレイヤーのゲームをまとめて開始（大会用）
+     * 準備は1tickあたりの上限人数ずつ複数tickに分けて行い、全員の準備ができたら同じtickで一斉に開始する
+     *
+     * @param players  プレイヤー
+     * @param pattern  ブロックパターン（3x3x3の配列）
+     * @param mode     コースの種類
+     * @param onBegin  開始したときに呼び出される処理（開始した人数を受け取る、nullの場合は何もしない）
+     */
+    public void startGames(List<Player> players, boolean[][][] pattern, CourseMode mode, IntConsumer onBegin) {
+        batchStarts.add(new BatchStart(players, pattern, mode,
+                plugin.getConfig().getInt("tournament.prepare-per-tick", 4),
+                plugin.getConfig().getInt("tournament.spawn-per-tick", 64), onBegin));
+    }
+
+    /**
+     * まとめて開始の準備を進め、全員の準備ができたら一斉に開始（毎tick呼び出される）
+     */
+    private void tickBatchStarts() {
+        Iterator<BatchStart> iterator = batchStarts.iterator();
+        while (iterator.hasNext()) {
+            BatchStart batch = iterator.next();
+
+            // 上限人数まで準備（プールのリグが足りずにスポーンした場合は、スポーン数の上限でも止める）
+            int spawnStart = rigPool.getSpawnCount();
+            for (int i = 0; i < batch.perTick && !batch.pending.isEmpty()
+                    && rigPool.getSpawnCount() - spawnStart < batch.spawnsPerTick; i++) {
+                Player player = batch.pending.poll();
+                if (player.isOnline() && !playerDataManager.hasPlayerData(player)) {
+                    PlayerData playerData = prepareGame(player, batch.pattern, batch.mode);
+                    if (playerData != null) {
+                        batch.prepared.add(playerData);
+                    }
+                }
+            }
+            if (!batch.pending.isEmpty()) {
+                continue;
+            }
+
+            // 全員の先読みしたチャンクが読み込まれるまで待つ
+            boolean ready = true;
+            for (PlayerData playerData : batch.prepared) {
+                ready &= isChunkWindowReady(playerData);
+            }
+            if (!ready) {
+                continue;
+            }
+
+            // 全員の準備ができたら同じtickで開始（準備中に抜けたプレイヤーは除く）
+            int count = 0;
+            for (PlayerData playerData : batch.prepared) {
+                if (playerData.isWaitingForStart && playerData.player.isOnline()
+                        && playerDataManager.getPlayerData(playerData.player) == playerData) {
+                    beginGame(playerData);
+                    count++;
+                }
+            }
+            if (batch.onBegin != null) {
+                batch.onBegin.accept(count);
+            }
+            iterator.remove();
+        }
+    }
+
+    /**
+     * レーンモードで全員が走るコースの開始位置を取得
+     * 設定で指定されていない場合は、最初に始めたプレイヤーの位置を誰も遊んでいなくなるまで使う
+     *
+     * @param player 始めるプレイヤー
+     * @return 開始位置
+     */
+    private Location getLaneOrigin(Player player) {
+        if (laneOrigin == null) {
+            String worldName = plugin.getConfig().getString("lanes.origin.world", "");
+            World world = worldName.isEmpty() ? null : Bukkit.getWorld(worldName);
+            if (world != null) {
+                laneOrigin = new Location(world,
+                        plugin.getConfig().getInt("lanes.origin.x") + 0.5,
+                        plugin.getConfig().getInt("lanes.origin.y"),
+                        plugin.getConfig().getInt("lanes.origin.z") + 0.5);
+            } else {
+                if (!worldName.isEmpty()) {
+                    Main.logger.warning("[Lanes] ワールドが見つかりません: " + worldName + "（プレイヤーの位置を開始位置にします）");
+                }
+                laneOrigin = player.getLocation();
+            }
+            laneOrigin.setYaw(0f);
+            laneOrigin.setPitch(0f);
+        }
+        return laneOrigin.clone();
+    }
+
+    /**
+     * 開始前に先読みしたチャンクが読み込まれたかどうか（待っている間、毎tick呼び出される）
+     *
+     * @param playerData プレイヤーデータ
+     * @return 読み込まれた、または待つ時間を超えた場合はtrue
+     */
+    private boolean isChunkWindowReady(PlayerData playerData) {
+        return playerData.chunkWindow == null || playerData.chunkWindow.isReady()
+                || ++playerData.chunkWaitTicks >= CHUNK_WAIT_TIMEOUT_TICKS;
+    }
+
+    /**
+     * ゲームの準備（エンティティの配置・カメラへの搭乗など）
+     * 準備後はキューブを動かさず、操作も受け付けない（beginGameで開始）
+     *
+     * @param player   プレイヤー
+     * @param pattern  ブロックパターン（3x3x3の配列）
+     * @param mode     コースの種類
+     * @return プレイヤーデータ（すでにゲーム中の場合はnull）
+     */
+    private PlayerData prepareGame(Player player, boolean[][][] pattern, CourseMode mode) {
         if (playerDataManager.hasPlayerData(player)) {
             player.sendMessage("すでにゲーム中です。");
-            return;
+            return null;
+        }
+
+        // 練習・エンドレスモードのコースは生成するので、ゲーム専用ワールドのレーンで遊ぶ
+        Location returnLocation = null;
+        int gameLane = -1;
+        if (mode != CourseMode.WORLD && plugin.getConfig().getBoolean("game-worlds.enabled", false)) {
+            returnLocation = player.getLocation();
+            gameLane = gameWorlds.acquireLane();
+            player.teleport(gameWorlds.getLaneLocation(gameLane));
+        }
+
+        // レーンモード（複数のプレイヤーが同じコースの同じ座標で走る）
+        boolean lanes = plugin.getConfig().getBoolean("lanes.enabled", false);
+        if (lanes && gameLane < 0) {
+            // 全員を同じ開始位置に移動（終了時は元の位置に戻す）
+            returnLocation = player.getLocation();
+            player.teleport(getLaneOrigin(player));
         }
 
         // プレイヤーの位置をブロックグリッドにスナップ
@@ -181,6 +440,10 @@ public class GameManager {
 
         // PlayerDataを作成
         PlayerData playerData = playerDataManager.getOrCreatePlayerData(player);
+        playerData.returnLocation = returnLocation;
+        playerData.gameLane = gameLane;
+        playerData.isWaitingForStart = true;
+        playerData.courseMode = mode;
 
         // 現在のゲームモードを保存
         playerData.originalGameMode = player.getGameMode();
@@ -188,25 +451,105 @@ public class GameManager {
         // アドベンチャーモードに変更
         player.setGameMode(GameMode.ADVENTURE);
 
-        // スコアボード管理を作成して初期化
-        playerData.scoreTracker = new GameScoreTracker(player);
-        playerData.scoreTracker.initializeScores();
+        // スコアボード管理を作成（初期化は開始時）
+        playerData.scoreTracker = new GameScoreTracker(player, datapackBridge, scoreRules,
+                plugin.getConfig().getInt("scoring.time-publish-interval", 20));
+
+        // 効果音のキューを作成（tickの終わりにまとめて鳴らす）
+        playerData.sounds = new SoundQueue(player);
+
+        // HUDを作成（ボスバーは壁に近づいたときに作る）
+        playerData.hud = new GameHud(player, plugin.getConfig().getInt("hud.bossbar-steps", 10));
+
+        // ゲーム用エンティティの管理を作成（設定に応じて見せるプレイヤーを絞る）
+        VisibilityPolicy policy = VisibilityPolicy.fromConfig(plugin.getConfig().getString("visibility.policy"),
+                VisibilityPolicy.EVERYONE);
+        if (lanes && (policy == VisibilityPolicy.EVERYONE || policy == VisibilityPolicy.NEARBY)) {
+            // 他のレーンのプレイヤーは常に近くにいるので、本人のみに絞る
+            policy = VisibilityPolicy.OWNER;
+        }
+        playerData.rig = new RigEntities(plugin, packetBundler, player, policy,
+                plugin.getConfig().getDouble("visibility.radius", 48), effectBudget);
+
+        // キューブの前方のチャンクの先読みを開始（ゲーム中にチャンクを同期読み込みしないように）
+        // 毎tickワールドを読む最も遠い距離（前方の壁の探索）を覆うチャンク数より少なくはしない
+        int aheadChunks = Math.max(plugin.getConfig().getInt("chunks.preload-ahead", 8),
+                (HolePreview.WALL_SEARCH_LENGTH + 15) / 16 + 1);
+        playerData.chunkWindow = chunkPreloader.open(player.getWorld(),
+                baseLocation.getBlockX() - PRELOAD_HALF_WIDTH, baseLocation.getBlockX() + PRELOAD_HALF_WIDTH,
+                aheadChunks);
+        playerData.chunkWindow.update(baseLocation.getZ(), initialLocation.getZ());
+
+        // プールからキューブ・カメラ・プレビューのエンティティ一式を割り当てる
+        playerData.pooledRig = rigPool.acquire(player.getWorld(), baseLocation);
 
         // キャラのキューブを作成
-        playerData.cube = new PlayerCube(player.getWorld(), baseLocation.clone(), pattern, playerData.scoreTracker);
+        playerData.cube = new PlayerCube(player.getWorld(), baseLocation.clone(), pattern, playerData.scoreTracker,
+                playerData.pooledRig);
 
         // カメラを作成してセットアップ
-        playerData.camera = new CubeCamera(player.getWorld(), baseLocation.clone(), playerData.cube);
-        playerData.camera.setup(player);
+        playerData.camera = new CubeCamera(player.getWorld(), baseLocation.clone(), playerData.cube,
+                plugin.getConfig().getInt("camera.update-interval", 4),
+                plugin.getConfig().getDouble("camera.position-epsilon", 0.05));
+        playerData.camera.setup(player, playerData.pooledRig.cameraSeat);
+
+        // コースの壁を走査し、穴の中心を通るカメラ経路を計算
+        // （ワールドのコースはチャンクを同期読み込みしないよう、読み込み済みのチャンクの分から少しずつ走査する）
+        int scanLength = plugin.getConfig().getInt("course.scan-length", 256);
+        if (mode == CourseMode.ENDLESS) {
+            // エンドレスモード：前方に壁を生成し続ける（最初の壁はここで生成）
+            playerData.endlessCourse = createEndlessCourse(playerData, baseLocation, pattern);
+            playerData.endlessCourse.update(baseLocation.getZ(), initialLocation.getZ());
+        } else if (mode == CourseMode.PRACTICE) {
+            // 練習モード：壁を生成してプレイヤーにだけ送り、当たり判定もその壁で行う（ワールドは変更しない）
+            playerData.virtualCourse = createPracticeCourse(player, baseLocation, pattern);
+            playerData.cube.setCourse(playerData.virtualCourse);
+            playerData.wallIndex = playerData.virtualCourse.toWallIndex();
+        } else if (lanes) {
+            // 同じコースを走るレーン同士で共有（走査は最初の1人のみ）
+            String key = player.getWorld().getName() + ":" + baseLocation.getBlockX() + ","
+                    + baseLocation.getBlockY() + "," + baseLocation.getBlockZ() + ":" + scanLength;
+            playerData.wallIndex = sharedWallIndexes.computeIfAbsent(key,
+                    k -> WallIndex.scanning(player.getWorld(), baseLocation, scanLength));
+            playerData.wallIndex.scanLoaded();
+        } else {
+            playerData.wallIndex = WallIndex.scanning(player.getWorld(), baseLocation, scanLength);
+            playerData.wallIndex.scanLoaded();
+        }
+        if (plugin.getConfig().getBoolean("camera.follow-path", true)) {
+            playerData.camera.usePath(playerData.wallIndex);
+        }
 
         // 穴なぞり管理を作成
         playerData.tracingManager = new HoleTracingManager();
 
+        // プレビュー用BlockDisplayのプール（リグに事前スポーン済み）をセッションに割り当てる
+        playerData.displayPool = playerData.pooledRig.displayPool;
+        playerData.displayPool.attach(playerData.rig);
+
         // プレビュー表示を作成
-        playerData.preview = new HolePreview(player.getWorld(), player, playerData.tracingManager, playerData.scoreTracker);
+        playerData.preview = new HolePreview(player.getWorld(), player, playerData.tracingManager, playerData.scoreTracker,
+                playerData.displayPool, playerData.rig, playerData.sounds);
 
         // キューブプレビュー表示を作成（PlayerCubeのHoleStateを使用）
-        playerData.cubePreview = new CubePreview(player.getWorld(), playerData.cube, baseLocation.clone(), plugin);
+        playerData.cubePreview = new CubePreview(player.getWorld(), playerData.cube, baseLocation.clone(), plugin,
+                playerData.displayPool);
+
+        // キューブとカメラをセッションのエンティティとして登録（まとめ送信・見せるプレイヤーの制御）
+        playerData.rig.add(playerData.cube.getEntity());
+        playerData.cube.getDisplays().forEach(playerData.rig::add);
+        playerData.rig.add(playerData.camera.getEntity());
+        playerData.rig.refreshViewers();
+
+        // レーンモードでは、同じコースを走っている他のプレイヤーとお互いに見えなくする
+        if (lanes) {
+            for (PlayerData other : playerDataManager.getAllPlayerData()) {
+                if (other.player != null && other != playerData) {
+                    player.hidePlayer(plugin, other.player);
+                    other.player.hidePlayer(plugin, player);
+                }
+            }
+        }
 
         // ホットバーのスロットを5番目（インデックス4）に設定
         player.getInventory().setHeldItemSlot(4);
@@ -221,12 +564,187 @@ public class GameManager {
         }
         player.getInventory().setItemInOffHand(new ItemStack(Material.STONE_BUTTON));
 
-        // ゲーム時間タイマーを初期化（データパック側で使用）
-        playerData.scoreTracker.setScore("runhole_game_time", 0);
+        return playerData;
+    }
+
+    /**
+     * 準備済みのゲームを開始（キューブが動き出し、データパック側の処理が始まる）
+     *
+     * @param playerData プレイヤーデータ
+     */
+    private void beginGame(PlayerData playerData) {
+        playerData.isWaitingForStart = false;
+
+        // スコアボードを初期化（ゲーム時間タイマーとスコアの計算もここから始まる）
+        playerData.scoreTracker.initializeScores();
 
         // 操作説明やメッセージはデータパック側で表示
+        playerData.scoreTracker.fire(DatapackBridge.Event.GAME_START);
+
+        plugin.getLogger().info(playerData.player.getName() + "がゲームを開始しました。");
+    }
+
+    /**
+     * 練習モードの仮想の壁を作成
+     *
+     * @param player       プレイヤー
+     * @param baseLocation キューブの開始位置
+     * @param pattern      ブロックパターン（穴の形に使う）
+     * @return 仮想の壁
+     */
+    private VirtualCourse createPracticeCourse(Player player, Location baseLocation, boolean[][][] pattern) {
+        VirtualCourse course = new VirtualCourse(player.getWorld(), player, getWallMaterial(),
+                baseLocation.getBlockX(), baseLocation.getBlockY(), getWallRadius());
+        WallGenerator generator = new WallGenerator(pattern, baseLocation.getBlockX(), baseLocation.getBlockY(),
+                getWallSeed());
+
+        int wallCount = plugin.getConfig().getInt("practice.wall-count", 20);
+        int spacing = getWallSpacing();
+        int z = baseLocation.getBlockZ() + plugin.getConfig().getInt("practice.first-wall-distance", 16);
+        for (int i = 0; i < wallCount; i++) {
+            course.addWall(generator.next(z));
+            z += spacing;
+        }
+        return course;
+    }
+
+    /**
+     * エンドレスモードのコースを作成
+     * 壁はセッションの壁の一覧に直接追加されるため、走査は行わない
+     *
+     * @param playerData   プレイヤーデータ（virtualCourse・wallIndexを設定する）
+     * @param baseLocation キューブの開始位置
+     * @param pattern      ブロックパターン（穴の形に使う）
+     * @return エンドレスコース
+     */
+    private EndlessCourse createEndlessCourse(PlayerData playerData, Location baseLocation, boolean[][][] pattern) {
+        Player player = playerData.player;
+        Material wallMaterial = getWallMaterial();
+        int radius = getWallRadius();
+
+        // 仮想の壁にする場合はプレイヤーにだけ送り、当たり判定もその壁で行う
+        if (plugin.getConfig().getBoolean("endless.virtual", true)) {
+            playerData.virtualCourse = new VirtualCourse(player.getWorld(), player, wallMaterial,
+                    baseLocation.getBlockX(), baseLocation.getBlockY(), radius);
+            playerData.cube.setCourse(playerData.virtualCourse);
+        }
+
+        playerData.wallIndex = new WallIndex(new ArrayList<>());
+        WallGenerator generator = new WallGenerator(pattern, baseLocation.getBlockX(), baseLocation.getBlockY(),
+                getWallSeed());
+        return new EndlessCourse(generator, playerData.wallIndex,
+                baseLocation.getBlockZ() + plugin.getConfig().getInt("practice.first-wall-distance", 16),
+                plugin.getConfig().getInt("endless.walls-ahead", 6), getWallSpacing(),
+                playerData.virtualCourse, player.getWorld(), blockPlacer, wallMaterial,
+                baseLocation.getBlockX(), baseLocation.getBlockY(), radius);
+    }
+
+    /**
+     * 生成する壁のマテリアル（設定値が不正な場合はWHITE_CONCRETE）
+     */
+    private Material getWallMaterial() {
+        Material wallMaterial = Material.matchMaterial(plugin.getConfig().getString("practice.wall-material", "WHITE_CONCRETE"));
+        if (wallMaterial == null || !wallMaterial.isBlock() || PlayerCube.isAir(wallMaterial)) {
+            plugin.getLogger().warning("practice.wall-materialが不正なため、WHITE_CONCRETEを使用します");
+            wallMaterial = Material.WHITE_CONCRETE;
+        }
+        return wallMaterial;
+    }
+
+    /**
+     * 生成する壁の半径（穴はキューブの開始位置から最大3ブロックずれるため、3以上）
+     */
+    private int getWallRadius() {
+        return Math.max(3, plugin.getConfig().getInt("practice.wall-radius", 4));
+    }
+
+    /**
+     * 生成する壁の間隔（ブロック）
+     */
+    private int getWallSpacing() {
+        return Math.max(4, plugin.getConfig().getInt("practice.wall-spacing", 12));
+    }
+
+    /**
+     * 壁の並びのシード（0の場合はランダム）
+     */
+    private long getWallSeed() {
+        long seed = plugin.getConfig().getLong("practice.seed", 0);
+        return seed != 0 ? seed : System.nanoTime();
+    }
+
+    /**
+     * ゲームをその場でやり直す（エンティティは作り直さずに開始状態へ戻す）
+     *
+     * @param player プレイヤー
+     */
+    public void restartGame(Player player) {
+        PlayerData playerData = playerDataManager.getPlayerData(player);
+        if (playerData == null || playerData.cube == null) {
+            player.sendMessage("ゲーム中ではありません。");
+            return;
+        }
+        if (playerData.isWaitingForStart) {
+            player.sendMessage("ゲームの開始を待っています。");
+            return;
+        }
+
+        // エンドレスモードは最初の壁から生成し直す
+        if (playerData.endlessCourse != null) {
+            playerData.endlessCourse.reset();
+        }
+
+        resetSession(playerData, 0);
+
+        // ゲームオーバーで降車・スペクテーターにしていた場合は戻す
+        if (playerData.isGameOver) {
+            playerData.isGameOver = false;
+            player.setGameMode(GameMode.ADVENTURE);
+        }
+
+        // スコアボードとゲーム時間タイマーを初期化（データパック側の処理も最初から）
+        playerData.scoreTracker.initializeScores();
+        playerData.scoreTracker.setScore(GameScoreTracker.INDEX_SPECTATOR_TIMER, 0);
+        playerData.scoreTracker.fire(DatapackBridge.Event.GAME_START);
 
-        plugin.getLogger().info(player.getName() + "がゲームを開始しました。");
+        plugin.getLogger().info(player.getName() + "がゲームをやり直しました。");
+    }
+
+    /**
+     * セッションを指定したZ位置の状態に戻す（リスタート・チェックポイントからの再開用）
+     * キューブ・カメラ・プレビューのエンティティはそのまま使い回す
+     *
+     * @param playerData プレイヤーデータ
+     * @param gridZ      戻すグリッドのZ位置（0で開始位置）
+     */
+    private void resetSession(PlayerData playerData, int gridZ) {
+        playerData.cube.reset(gridZ);
+
+        // なぞり状態とプレビューを戻す
+        playerData.tracingManager.reset();
+        playerData.preview.clear();
+        playerData.cubePreview.reset();
+
+        // 戻した位置の前方を先読みし、エンドレスモードの壁を用意
+        double cubeZ = playerData.cube.getCurrentZ();
+        double cameraZ = cubeZ - CubeCamera.CAMERA_DISTANCE_BEHIND;
+        if (playerData.chunkWindow != null) {
+            playerData.chunkWindow.update(cubeZ, cameraZ);
+        }
+        if (playerData.endlessCourse != null) {
+            playerData.endlessCourse.update(cubeZ, cameraZ);
+            if (plugin.getConfig().getBoolean("camera.follow-path", true)) {
+                playerData.camera.usePath(playerData.wallIndex);
+            }
+        }
+
+        // カメラを戻す（降車していた場合は乗せ直す）
+        playerData.camera.reset();
+
+        // 警告とガイドを消す（次のガイドはタイトルごと送り直す）
+        if (playerData.hud != null) {
+            playerData.hud.clear();
+        }
     }
 
     /**
@@ -245,8 +763,8 @@ public class GameManager {
 
         // スコアボードを更新
         if (playerData.scoreTracker != null) {
-            playerData.scoreTracker.setScore(GameScoreTracker.OBJECTIVE_GAME_STATE, GameScoreTracker.GAME_STATE_GAME_END);
-            playerData.scoreTracker.setScore(GameScoreTracker.OBJECTIVE_END_TYPE, endType);
+            playerData.scoreTracker.setScore(GameScoreTracker.INDEX_GAME_STATE, GameScoreTracker.GAME_STATE_GAME_END);
+            playerData.scoreTracker.setScore(GameScoreTracker.INDEX_END_TYPE, endType);
         }
 
         // カメラをクリーンアップ
@@ -269,6 +787,47 @@ public class GameManager {
             playerData.cubePreview.cleanup();
         }
 
+        // エンドレスモードの残りの壁を消す
+        if (playerData.endlessCourse != null) {
+            playerData.endlessCourse.clear();
+        }
+
+        // 仮想の壁を消す（クライアントの表示を戻す）
+        if (playerData.virtualCourse != null) {
+            playerData.virtualCourse.clear();
+        }
+
+        // 先読みしていたチャンクを解放
+        if (playerData.chunkWindow != null) {
+            playerData.chunkWindow.close();
+        }
+
+        // ゲーム用エンティティの管理を解除
+        if (playerData.rig != null) {
+            playerData.rig.clear();
+        }
+
+        // キューブ・カメラ・プレビューのエンティティ一式をプールに戻す
+        if (playerData.pooledRig != null) {
+            rigPool.release(playerData.pooledRig);
+        }
+
+        // レーンモードで隠していた他のプレイヤーとお互いに見えるように戻す
+        if (plugin.getConfig().getBoolean("lanes.enabled", false)) {
+            for (PlayerData other : playerDataManager.getAllPlayerData()) {
+                if (other.player != null) {
+                    player.showPlayer(plugin, other.player);
+                    other.player.showPlayer(plugin, player);
+                }
+            }
+        }
+
+        // 誰も遊んでいなければ共有していた壁の一覧と開始位置を破棄（コースが作り直されても古いデータを使わない）
+        if (playerDataManager.getAllPlayerData().isEmpty()) {
+            sharedWallIndexes.clear();
+            laneOrigin = null;
+        }
+
         // 左手（オフハンド）の石のボタンを削除
         ItemStack offHandItem = player.getInventory().getItemInOffHand();
         if (offHandItem != null && offHandItem.getType() == Material.STONE_BUTTON) {
@@ -276,9 +835,14 @@ public class GameManager {
         }
 
         // ボスバーをクリーンアップ
-        if (playerData.warningBossBar != null) {
-            playerData.warningBossBar.removeAll();
-            playerData.warningBossBar = null;
+        if (playerData.hud != null) {
+            playerData.hud.clear();
+            playerData.hud = null;
+        }
+
+        // 予約されていた効果音を鳴らす（セッションがなくなるとゲームループでは鳴らされない）
+        if (playerData.sounds != null) {
+            playerData.sounds.flush();
         }
 
         // 元のゲームモードに戻す
@@ -287,11 +851,20 @@ public class GameManager {
             plugin.getLogger().info(player.getName() + "のゲームモードを" + playerData.originalGameMode + "に戻しました");
         }
 
+        // ゲーム専用ワールドで遊んでいた場合は元の位置に戻し、レーンを返却
+        if (playerData.gameLane >= 0) {
+            gameWorlds.releaseLane(playerData.gameLane);
+        }
+        if (playerData.returnLocation != null) {
+            player.teleport(playerData.returnLocation);
+        }
+
         // スコアボードを0にリセット（データパック側の処理を停止）
         if (playerData.scoreTracker != null) {
-            playerData.scoreTracker.setScore(GameScoreTracker.OBJECTIVE_GAME_STATE, GameScoreTracker.GAME_STATE_NOT_PLAYING);
-            playerData.scoreTracker.setScore("runhole_stop_request", 0);
-            playerData.scoreTracker.setScore("runhole_spectator_timer", 0);
+            playerData.scoreTracker.setScore(GameScoreTracker.INDEX_GAME_STATE, GameScoreTracker.GAME_STATE_NOT_PLAYING);
+            playerData.scoreTracker.setScore(GameScoreTracker.INDEX_SPECTATOR_TIMER, 0);
+            playerData.scoreTracker.fire(DatapackBridge.Event.GAME_STOP);
+            playerData.scoreTracker.flush();
         }
 
         player.sendMessage("ゲームを終了しました。");
@@ -321,33 +894,41 @@ public class GameManager {
         playerData.isGameOver = true;
         plugin.getLogger().info(player.getName() + "のゲームオーバー処理を開始");
 
+        // キューブの予測移動を止めて、停止した位置に合わせる
+        if (playerData.cube != null) {
+            playerData.cube.snapEntityPosition();
+        }
+
         // 衝突したブロックに演出を適用
         if (collidedBlocks != null && !collidedBlocks.isEmpty() && playerData.cube != null) {
             for (CubeBlock block : collidedBlocks) {
-                // ブロックを赤いガラスに変更
-                playerData.cube.changeBlockColor(block, Material.RED_STAINED_GLASS);
+                // 衝突したセルを赤いガラスで示す
+                playerData.cube.highlightBlock(block, Material.RED_STAINED_GLASS, playerData.rig);
 
                 // ブロックの位置を取得
                 Location blockLoc = playerData.cube.getBlockDisplayLocation(block);
                 if (blockLoc != null) {
                     // パーティクルエフェクト（炎とダメージ）
-                    player.getWorld().spawnParticle(Particle.FLAME, blockLoc, 20, 0.3, 0.3, 0.3, 0.05);
-                    player.getWorld().spawnParticle(Particle.LAVA, blockLoc, 10, 0.2, 0.2, 0.2, 0);
-                    player.getWorld().spawnParticle(Particle.SMOKE, blockLoc, 15, 0.3, 0.3, 0.3, 0.05);
+                    playerData.rig.spawnParticle(Particle.FLAME, blockLoc, 20, 0.3, 0.3, 0.3, 0.05);
+                    playerData.rig.spawnParticle(Particle.LAVA, blockLoc, 10, 0.2, 0.2, 0.2, 0);
+                    playerData.rig.spawnParticle(Particle.SMOKE, blockLoc, 15, 0.3, 0.3, 0.3, 0.05);
 
                     // 爆発エフェクト（破壊力なし）
-                    player.getWorld().createExplosion(blockLoc, 0.0f, false, false);
+                    playerData.rig.spawnExplosion(blockLoc);
 
                     // 爆発音
-                    GameSound.GAME_OVER_EXPLOSION.play(player);
+                    playerData.sounds.add(GameSound.GAME_OVER_EXPLOSION);
                 }
             }
         }
 
         // すぐにプレイヤーを降車させて、衝突原因を振り返れるようにする
         if (playerData.camera != null) {
+            // 椅子の予測移動を止めて、現在のカメラ位置に合わせる
+            playerData.camera.snapPosition();
+
             // 椅子の現在位置を取得
-            Location dismountLoc = playerData.camera.getEntity().getLocation();
+            Location dismountLoc = playerData.camera.getCameraLocation();
 
             // プレイヤーを降車
             playerData.camera.eject();
@@ -362,23 +943,33 @@ public class GameManager {
         }
 
         // スコアボード更新（データパックがこれをトリガーにする）
-        playerData.scoreTracker.setScore(GameScoreTracker.OBJECTIVE_GAME_STATE,
+        playerData.scoreTracker.setScore(GameScoreTracker.INDEX_GAME_STATE,
                                          GameScoreTracker.GAME_STATE_GAME_END);
-        playerData.scoreTracker.setScore(GameScoreTracker.OBJECTIVE_END_TYPE, endType);
+        playerData.scoreTracker.setScore(GameScoreTracker.INDEX_END_TYPE, endType);
+        playerData.scoreTracker.fire(DatapackBridge.Event.GAME_OVER);
 
         // タイトル表示、メッセージ送信、stopGame呼び出しはデータパック側で処理
-        // データパック側が3秒後に /rth stop <player> を実行する
+        // データパック側が3秒後に /runhole stop @s を実行する
     }
 
     /**
      * 全アクティブなプレイヤーのゲームを終了する
      */
     public void stopAllGames() {
+        // 準備中のまとめて開始を取り消す
+        batchStarts.clear();
+
         for (PlayerData playerData : playerDataManager.getAllPlayerData()) {
             if (playerData.player != null) {
                 stopGame(playerData.player, GameScoreTracker.END_TYPE_COMMAND_STOP);
             }
         }
+
+        // 終了したゲームのコース削除を反映
+        blockPlacer.flush();
+
+        // プールのリグをすべて削除
+        rigPool.cleanup();
     }
 
 }
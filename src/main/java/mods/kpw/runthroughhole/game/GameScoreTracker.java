@@ -4,15 +4,23 @@ import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scoreboard.Objective;
+import org.bukkit.scoreboard.Score;
 import org.bukkit.scoreboard.Scoreboard;
 import org.bukkit.scoreboard.ScoreboardManager;
 
 import mods.kpw.runthroughhole.Main;
 
+/**
+ * プレイヤーのスコアボードの値を管理するクラス
+ * プラグインが書き込むObjectiveはメモリ上の値を更新するだけにして、変更されたものだけをflushでまとめてスコアボードに書き込む
+ * Objectiveは登録時に1回だけ取得し、プレイヤーごとのScoreはセッションで使い回す（スコアボードが作り直されたら取得し直す）
+ */
 public class GameScoreTracker {
 
-    private Scoreboard scoreboard;
     private Player player;
+    private final DatapackBridge bridge; // データパックへの出来事の通知（nullの場合は通知しない）
+    private final ScoreRules rules; // スコアの計算ルール（nullの場合は計算しない）
+    private final int timePublishInterval; // ゲーム時間をスコアボードに書き込む間隔（tick）
 
     // Objective名を定数として定義
     public static final String OBJECTIVE_GAME_STATE = "runhole_game_state";
@@ -23,6 +31,14 @@ public class GameScoreTracker {
     public static final String OBJECTIVE_MOVE_COUNT = "runhole_move_count";
     public static final String OBJECTIVE_ROTATION_COUNT = "runhole_rotation_count";
     public static final String OBJECTIVE_IS_BOOSTING = "runhole_is_boosting";
+    public static final String OBJECTIVE_GAME_TIME = "runhole_game_time";
+    public static final String OBJECTIVE_SCORE_BASE = "runhole_score_base";
+    public static final String OBJECTIVE_SCORE_PERFECT = "runhole_score_perfect";
+    public static final String OBJECTIVE_SCORE_TIME = "runhole_score_time";
+    public static final String OBJECTIVE_SCORE_TOTAL = "runhole_score_total";
+
+    // データパックが書き込むObjective
+    public static final String OBJECTIVE_SPECTATOR_TIMER = "runhole_spectator_timer";
 
     // ゲーム状態の定数
     public static final int GAME_STATE_NOT_PLAYING = 0;
@@ -36,82 +52,384 @@ public class GameScoreTracker {
     public static final int END_TYPE_PLAYER_QUIT = 3;
     public static final int END_TYPE_LOGOUT = 4;
 
+    // 使用するObjectiveと表示名（先頭のCACHED_COUNT個はプラグインだけが書き込み、メモリ上に値を持つ）
+    private static final String[] OBJECTIVES = {
+            OBJECTIVE_GAME_STATE,
+            OBJECTIVE_END_TYPE,
+            OBJECTIVE_WALLS_PASSED,
+            OBJECTIVE_HOLES_TRACED,
+            OBJECTIVE_PERFECT_WALLS,
+            OBJECTIVE_MOVE_COUNT,
+            OBJECTIVE_ROTATION_COUNT,
+            OBJECTIVE_IS_BOOSTING,
+            OBJECTIVE_GAME_TIME,
+            OBJECTIVE_SCORE_BASE,
+            OBJECTIVE_SCORE_PERFECT,
+            OBJECTIVE_SCORE_TIME,
+            OBJECTIVE_SCORE_TOTAL,
+            OBJECTIVE_SPECTATOR_TIMER,
+    };
+    private static final String[] DISPLAY_NAMES = {
+            "ゲーム状態",
+            "終了タイプ",
+            "通過壁数",
+            "なぞった穴数",
+            "パーフェクト壁数",
+            "移動回数",
+            "回転回数",
+            "ブースト中",
+            "ゲーム時間",
+            "基本スコア",
+            "パーフェクトボーナス",
+            "時間ボーナス",
+            "合計スコア",
+            "スペクテーターモードタイマー",
+    };
+    private static final int CACHED_COUNT = 13;
+
+    // Objectiveのインデックス（OBJECTIVESと同じ並び、毎tick呼び出される処理では名前の代わりにこちらを使う）
+    public static final int INDEX_GAME_STATE = 0;
+    public static final int INDEX_END_TYPE = 1;
+    public static final int INDEX_WALLS_PASSED = 2;
+    public static final int INDEX_HOLES_TRACED = 3;
+    public static final int INDEX_PERFECT_WALLS = 4;
+    public static final int INDEX_MOVE_COUNT = 5;
+    public static final int INDEX_ROTATION_COUNT = 6;
+    public static final int INDEX_IS_BOOSTING = 7;
+    public static final int INDEX_GAME_TIME = 8;
+    public static final int INDEX_SCORE_BASE = 9;
+    public static final int INDEX_SCORE_PERFECT = 10;
+    public static final int INDEX_SCORE_TIME = 11;
+    public static final int INDEX_SCORE_TOTAL = 12;
+    public static final int INDEX_SPECTATOR_TIMER = 13;
+
+    // 登録時に取得したObjective（スコアボードが作り直されるたびにgenerationを進める）
+    private static final Objective[] objectives = new Objective[OBJECTIVES.length];
+    private static int generation = 0;
+
+    private final int[] values = new int[CACHED_COUNT]; // 現在の値
+    private final boolean[] dirty = new boolean[CACHED_COUNT]; // スコアボードに未反映の値
+    private final boolean[] written = new boolean[CACHED_COUNT]; // 一度でもスコアボードに書き込んだか
+    private boolean hasDirty = false;
+
+    // このプレイヤーのScore（objectivesと同じ並び）
+    private final Score[] scores = new Score[OBJECTIVES.length];
+    private int scoreGeneration = -1;
 
     public GameScoreTracker(Player player) {
+        this(player, null, null, 1);
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param player              プレイヤー
+     * @param bridge              データパックへの出来事の通知（nullの場合は通知しない）
+     * @param rules               スコアの計算ルール（nullの場合は計算しない）
+     * @param timePublishInterval ゲーム時間をスコアボードに書き込む間隔（tick）
+     */
+    public GameScoreTracker(Player player, DatapackBridge bridge, ScoreRules rules, int timePublishInterval) {
         this.player = player;
-        ScoreboardManager manager = Bukkit.getScoreboardManager();
-        if (manager != null) {
-            this.scoreboard = manager.getMainScoreboard();
-        } else {
-            Main.logger.warning("ScoreboardManager is null. Scoreboard features might not work.");
-        }
+        this.bridge = bridge;
+        this.rules = rules;
+        this.timePublishInterval = Math.max(1, timePublishInterval);
     }
 
     /**
      * プラグイン初期化時に1回だけ呼ばれる
-     * すべてのObjectiveを登録する
+     * すべてのObjectiveを登録し、Objectiveを取得しておく
      */
     public static void registerObjectives() {
-        ScoreboardManager manager = Bukkit.getScoreboardManager();
-        if (manager == null) {
+        Scoreboard scoreboard = getMainScoreboard();
+        if (scoreboard == null) {
             Main.logger.warning("ScoreboardManager is null. Cannot register objectives.");
             return;
         }
-        Scoreboard scoreboard = manager.getMainScoreboard();
 
-        createObjective(scoreboard, OBJECTIVE_GAME_STATE, "ゲーム状態");
-        createObjective(scoreboard, OBJECTIVE_END_TYPE, "終了タイプ");
-        createObjective(scoreboard, OBJECTIVE_WALLS_PASSED, "通過壁数");
-        createObjective(scoreboard, OBJECTIVE_HOLES_TRACED, "なぞった穴数");
-        createObjective(scoreboard, OBJECTIVE_PERFECT_WALLS, "パーフェクト壁数");
-        createObjective(scoreboard, OBJECTIVE_MOVE_COUNT, "移動回数");
-        createObjective(scoreboard, OBJECTIVE_ROTATION_COUNT, "回転回数");
-        createObjective(scoreboard, OBJECTIVE_IS_BOOSTING, "ブースト中");
+        for (int i = 0; i < OBJECTIVES.length; i++) {
+            objectives[i] = createObjective(scoreboard, OBJECTIVES[i], DISPLAY_NAMES[i]);
+        }
+        generation++;
+    }
+
+    /**
+     * 取得しておいたObjectiveがまだ有効か確認し、削除・再作成されていれば取得し直す（定期的に呼び出される）
+     */
+    public static void validateObjectives() {
+        Scoreboard scoreboard = getMainScoreboard();
+        if (scoreboard == null) {
+            return;
+        }
+
+        boolean changed = false;
+        for (int i = 0; i < OBJECTIVES.length; i++) {
+            Objective current = scoreboard.getObjective(OBJECTIVES[i]);
+            if (current == null || !current.equals(objectives[i])) {
+                objectives[i] = current != null ? current : createObjective(scoreboard, OBJECTIVES[i], DISPLAY_NAMES[i]);
+                changed = true;
+            }
+        }
+        if (changed) {
+            // 各セッションのScoreを次のアクセス時に取得し直させる
+            generation++;
+            Main.logger.info("スコアボードのObjectiveを取得し直しました。");
+        }
+    }
+
+    private static Scoreboard getMainScoreboard() {
+        ScoreboardManager manager = Bukkit.getScoreboardManager();
+        return manager != null ? manager.getMainScoreboard() : null;
     }
 
-    private static void createObjective(Scoreboard scoreboard, String name, String displayName) {
+    private static Objective createObjective(Scoreboard scoreboard, String name, String displayName) {
         Objective objective = scoreboard.getObjective(name);
         if (objective == null) {
             objective = scoreboard.registerNewObjective(name, "dummy", displayName);
         } else {
             objective.setDisplayName(displayName);
         }
+        return objective;
     }
 
+    /**
+     * スコアを設定（メモリ上に値を持つObjectiveは次のflushで書き込む）
+     *
+     * @param objectiveName Objective名
+     * @param score         スコア
+     */
     public void setScore(String objectiveName, int score) {
-        if (scoreboard == null) return;
-        Objective objective = scoreboard.getObjective(objectiveName);
-        if (objective != null) {
-            objective.getScore(player.getName()).setScore(score);
+        int index = indexOf(objectiveName);
+        if (index >= 0) {
+            setScore(index, score);
         }
     }
 
+    /**
+     * スコアを設定（メモリ上に値を持つObjectiveは次のflushで書き込む）
+     *
+     * @param index Objectiveのインデックス（INDEX_*）
+     * @param score スコア
+     */
+    public void setScore(int index, int score) {
+        if (index >= CACHED_COUNT) {
+            writeScore(index, score);
+            return;
+        }
+        setCached(index, score);
+        if (index == INDEX_WALLS_PASSED || index == INDEX_PERFECT_WALLS || index == INDEX_GAME_TIME) {
+            updateTotals();
+        }
+    }
+
+    /**
+     * スコアを加算（メモリ上に値を持つObjectiveは次のflushで書き込む）
+     *
+     * @param objectiveName Objective名
+     * @param amount        加算する値
+     */
     public void addScore(String objectiveName, int amount) {
-        if (scoreboard == null) return;
-        Objective objective = scoreboard.getObjective(objectiveName);
-        if (objective != null) {
-            int currentScore = objective.getScore(player.getName()).getScore();
-            objective.getScore(player.getName()).setScore(currentScore + amount);
+        int index = indexOf(objectiveName);
+        if (index >= 0) {
+            addScore(index, amount);
+        }
+    }
+
+    /**
+     * スコアを加算（メモリ上に値を持つObjectiveは次のflushで書き込む）
+     *
+     * @param index  Objectiveのインデックス（INDEX_*）
+     * @param amount 加算する値
+     */
+    public void addScore(int index, int amount) {
+        if (index >= CACHED_COUNT) {
+            writeScore(index, readScore(index) + amount);
+            return;
+        }
+        if (amount != 0) {
+            setCached(index, values[index] + amount);
+            if (index == INDEX_WALLS_PASSED || index == INDEX_PERFECT_WALLS) {
+                updateTotals();
+            }
         }
     }
 
+    /**
+     * ゲーム時間を1tick進める（ゲーム中に毎tick呼び出される）
+     * スコアボードへは一定間隔ごと、またはデータパックへの通知時にだけ書き込む
+     */
+    public void tickGameTime() {
+        int time = ++values[INDEX_GAME_TIME];
+        if (time % timePublishInterval == 0) {
+            dirty[INDEX_GAME_TIME] = true;
+            hasDirty = true;
+        }
+
+        // 時間ボーナスの段階が変わったときだけ合計を計算し直す
+        if (rules != null && rules.timeBonus(time) != values[INDEX_SCORE_TIME]) {
+            updateTotals();
+        }
+    }
+
+    /**
+     * メモリ上の値を更新（変化した場合のみ書き込み対象にする）
+     */
+    private void setCached(int index, int score) {
+        if (values[index] != score || !written[index]) {
+            values[index] = score;
+            dirty[index] = true;
+            hasDirty = true;
+        }
+    }
+
+    /**
+     * 基本スコア・パーフェクトボーナス・時間ボーナス・合計スコアを計算し直す
+     */
+    private void updateTotals() {
+        if (rules == null) {
+            return;
+        }
+        int base = rules.base(values[INDEX_WALLS_PASSED]);
+        int perfect = rules.perfectBonus(values[INDEX_PERFECT_WALLS]);
+        int time = rules.timeBonus(values[INDEX_GAME_TIME]);
+        setCached(INDEX_SCORE_BASE, base);
+        setCached(INDEX_SCORE_PERFECT, perfect);
+        setCached(INDEX_SCORE_TIME, time);
+        setCached(INDEX_SCORE_TOTAL, base + perfect + time);
+    }
+
+    /**
+     * 変更されたスコアをまとめてスコアボードに書き込む
+     */
+    public void flush() {
+        if (!hasDirty) {
+            return;
+        }
+        hasDirty = false;
+        for (int i = 0; i < CACHED_COUNT; i++) {
+            if (dirty[i]) {
+                if (writeScore(i, values[i])) {
+                    dirty[i] = false;
+                    written[i] = true;
+                } else {
+                    // 書き込めなかった値は次のflushで書き込み直す
+                    hasDirty = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * データパックに出来事を通知（ファンクションがスコアを参照できるように先に書き込む）
+     *
+     * @param event 出来事
+     */
+    public void fire(DatapackBridge.Event event) {
+        // ゲーム時間は間隔ごとにしか書き込まないので、通知時は現在の値を書き込む
+        dirty[INDEX_GAME_TIME] = true;
+        hasDirty = true;
+        flush();
+
+        if (bridge != null) {
+            bridge.fire(player, event);
+        }
+    }
+
+    /**
+     * スコアを取得（メモリ上に値を持つObjectiveはその値）
+     *
+     * @param objectiveName Objective名
+     * @return スコア
+     */
     public int getScore(String objectiveName) {
-        if (scoreboard == null) return 0;
-        Objective objective = scoreboard.getObjective(objectiveName);
-        if (objective != null) {
-            return objective.getScore(player.getName()).getScore();
+        int index = indexOf(objectiveName);
+        return index >= 0 ? getScore(index) : 0;
+    }
+
+    /**
+     * スコアを取得（メモリ上に値を持つObjectiveはその値）
+     *
+     * @param index Objectiveのインデックス（INDEX_*）
+     * @return スコア
+     */
+    public int getScore(int index) {
+        if (index < CACHED_COUNT) {
+            return values[index];
+        }
+        return readScore(index);
+    }
+
+    /**
+     * このプレイヤーのScoreを取得（スコアボードが作り直されていれば取得し直す）
+     */
+    private Score getScoreHandle(int index) {
+        if (scoreGeneration != generation) {
+            scoreGeneration = generation;
+            for (int i = 0; i < OBJECTIVES.length; i++) {
+                scores[i] = objectives[i] != null ? objectives[i].getScore(player.getName()) : null;
+            }
+        }
+        return scores[index];
+    }
+
+    /**
+     * スコアボードに直接書き込む
+     *
+     * @return 書き込めた場合はtrue
+     */
+    private boolean writeScore(int index, int score) {
+        Score handle = getScoreHandle(index);
+        if (handle == null) return false;
+        try {
+            handle.setScore(score);
+            return true;
+        } catch (IllegalStateException e) {
+            // Objectiveが削除されていた場合は取得し直す（呼び出し元が次のflushで書き込み直す）
+            validateObjectives();
+            return false;
         }
-        return 0;
+    }
+
+    /**
+     * スコアボードから直接読み込む
+     */
+    private int readScore(int index) {
+        Score handle = getScoreHandle(index);
+        if (handle == null) return 0;
+        try {
+            return handle.getScore();
+        } catch (IllegalStateException e) {
+            validateObjectives();
+            return 0;
+        }
+    }
+
+    /**
+     * Objectiveのインデックス（登録していないObjectiveの場合は-1）
+     */
+    private static int indexOf(String objectiveName) {
+        // 定数で呼び出される場合は参照の比較だけで見つかる
+        for (int i = 0; i < OBJECTIVES.length; i++) {
+            if (OBJECTIVES[i] == objectiveName) {
+                return i;
+            }
+        }
+        for (int i = 0; i < OBJECTIVES.length; i++) {
+            if (OBJECTIVES[i].equals(objectiveName)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public void initializeScores() {
-        setScore(OBJECTIVE_GAME_STATE, GAME_STATE_PLAYING);
-        setScore(OBJECTIVE_END_TYPE, END_TYPE_NONE);
-        setScore(OBJECTIVE_WALLS_PASSED, 0);
-        setScore(OBJECTIVE_HOLES_TRACED, 0);
-        setScore(OBJECTIVE_PERFECT_WALLS, 0);
-        setScore(OBJECTIVE_MOVE_COUNT, 0);
-        setScore(OBJECTIVE_ROTATION_COUNT, 0);
-        setScore(OBJECTIVE_IS_BOOSTING, 0);
-    }
-}
\ No newline at end of file
+        setScore(INDEX_GAME_STATE, GAME_STATE_PLAYING);
+        setScore(INDEX_END_TYPE, END_TYPE_NONE);
+        setScore(INDEX_WALLS_PASSED, 0);
+        setScore(INDEX_HOLES_TRACED, 0);
+        setScore(INDEX_PERFECT_WALLS, 0);
+        setScore(INDEX_MOVE_COUNT, 0);
+        setScore(INDEX_ROTATION_COUNT, 0);
+        setScore(INDEX_IS_BOOSTING, 0);
+        setScore(INDEX_GAME_TIME, 0);
+    }
+}
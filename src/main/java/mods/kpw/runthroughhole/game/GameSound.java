@@ -5,6 +5,7 @@ import org.bukkit.entity.Player;
 
 /**
  * ゲーム内で使用する効果音を一元管理するenum
+ * ゲーム中はセッションのSoundQueueに予約し、tickの終わりにまとめて鳴らす
  */
 public enum GameSound {
     /** キューブ回転成功時 */
@@ -25,6 +26,9 @@ public enum GameSound {
     /** 穴を完全になぞり終えた時 */
     HOLE_COMPLETE(Sound.ENTITY_PLAYER_LEVELUP, 1.0f, 2.0f),
 
+    /** チェックポイントから再開した時 */
+    RESPAWN(Sound.ENTITY_ENDERMAN_TELEPORT, 1.0f, 1.0f),
+
     /** ゲームオーバー時の爆発音 */
     GAME_OVER_EXPLOSION(Sound.ENTITY_GENERIC_EXPLODE, 1.0f, 1.0f);
 
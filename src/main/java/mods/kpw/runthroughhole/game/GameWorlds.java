@@ -0,0 +1,154 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Difficulty;
+import org.bukkit.GameRule;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.WorldCreator;
+import org.bukkit.WorldType;
+import org.bukkit.generator.ChunkGenerator;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * ゲーム専用の軽量なワールド（何もない空のワールド）を管理するクラス
+ * 必要になったときに作成し、モブのスポーン・ランダムティック・昼夜・天候・自動保存を止める
+ * セッションごとにレーン（X方向に間隔を空けた開始位置）を割り当て、誰も使わなくなってしばらくしたらアンロードする
+ */
+public class GameWorlds {
+    // レーンの開始位置の高さ
+    private static final int LANE_Y = 128;
+
+    /**
+     * 何も生成しないチャンクジェネレータ（すべてのshouldGenerate*がfalseのまま）
+     */
+    private static class VoidGenerator extends ChunkGenerator {
+        @Override
+        public Location getFixedSpawnLocation(World world, Random random) {
+            return new Location(world, 0.5, LANE_Y, 0.5);
+        }
+    }
+
+    private final JavaPlugin plugin;
+    private final String worldName;
+    private final int laneSpacing; // レーンの間隔（ブロック）
+    private final int idleTicks; // 誰も使わなくなってからアンロードするまでのtick数
+
+    private final BitSet usedLanes = new BitSet(); // 使用中のレーン
+    private int idleCounter = 0; // 誰も使っていない時間（tick）
+
+    /**
+     * コンストラクタ
+     *
+     * @param plugin      プラグイン
+     * @param worldName   ワールド名
+     * @param laneSpacing レーンの間隔（ブロック）
+     * @param idleSeconds 誰も使わなくなってからアンロードするまでの秒数
+     */
+    public GameWorlds(JavaPlugin plugin, String worldName, int laneSpacing, int idleSeconds) {
+        this.plugin = plugin;
+        this.worldName = worldName;
+        this.laneSpacing = Math.max(16, laneSpacing);
+        this.idleTicks = Math.max(1, idleSeconds) * 20;
+    }
+
+    /**
+     * 空いているレーンを割り当てる
+     *
+     * @return レーン番号
+     */
+    public int acquireLane() {
+        int lane = usedLanes.nextClearBit(0);
+        usedLanes.set(lane);
+        idleCounter = 0;
+        return lane;
+    }
+
+    /**
+     * レーンを返却
+     *
+     * @param lane レーン番号
+     */
+    public void releaseLane(int lane) {
+        usedLanes.clear(lane);
+    }
+
+    /**
+     * レーンの開始位置を取得（ワールドがなければ作成）
+     *
+     * @param lane レーン番号
+     * @return 開始位置（ブロックの中心）
+     */
+    public Location getLaneLocation(int lane) {
+        return new Location(getOrCreateWorld(), lane * laneSpacing + 0.5, LANE_Y + 0.5, 0.5);
+    }
+
+    /**
+     * ゲーム用ワールドを取得（なければ作成）
+     *
+     * @return ゲーム用ワールド
+     */
+    public World getOrCreateWorld() {
+        World world = Bukkit.getWorld(worldName);
+        if (world != null) {
+            return world;
+        }
+
+        world = new WorldCreator(worldName)
+                .generator(new VoidGenerator())
+                .type(WorldType.FLAT)
+                .generateStructures(false)
+                .createWorld();
+        if (world == null) {
+            throw new IllegalStateException("ゲーム用ワールドを作成できませんでした: " + worldName);
+        }
+
+        // ゲームに不要な処理をすべて止める
+        world.setGameRule(GameRule.DO_MOB_SPAWNING, false);
+        world.setGameRule(GameRule.DO_PATROL_SPAWNING, false);
+        world.setGameRule(GameRule.DO_TRADER_SPAWNING, false);
+        world.setGameRule(GameRule.DO_INSOMNIA, false);
+        world.setGameRule(GameRule.RANDOM_TICK_SPEED, 0);
+        world.setGameRule(GameRule.DO_DAYLIGHT_CYCLE, false);
+        world.setGameRule(GameRule.DO_WEATHER_CYCLE, false);
+        world.setGameRule(GameRule.DO_FIRE_TICK, false);
+        world.setGameRule(GameRule.SPAWN_CHUNK_RADIUS, 0);
+        world.setSpawnFlags(false, false);
+        world.setDifficulty(Difficulty.PEACEFUL);
+        world.setStorm(false);
+        world.setThundering(false);
+        world.setTime(6000);
+        world.setAutoSave(false);
+
+        plugin.getLogger().info("ゲーム用ワールドを作成しました: " + worldName);
+        return world;
+    }
+
+    /**
+     * 誰も使っていない状態が続いたらワールドをアンロード（定期的に呼び出される）
+     *
+     * @param elapsedTicks 前回の呼び出しからのtick数
+     */
+    public void tickIdle(int elapsedTicks) {
+        World world = Bukkit.getWorld(worldName);
+        if (world == null) {
+            return;
+        }
+        if (!usedLanes.isEmpty() || !world.getPlayers().isEmpty()) {
+            idleCounter = 0;
+            return;
+        }
+
+        idleCounter += elapsedTicks;
+        if (idleCounter >= idleTicks) {
+            idleCounter = 0;
+            // 保存せずにアンロード（コースはゲームごとに生成するため）
+            if (Bukkit.unloadWorld(world, false)) {
+                plugin.getLogger().info("ゲーム用ワールドをアンロードしました: " + worldName);
+            }
+        }
+    }
+}
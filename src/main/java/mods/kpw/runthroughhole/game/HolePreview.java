@@ -10,9 +10,8 @@ import org.bukkit.util.Transformation;
 import org.joml.Vector2i;
 import org.joml.Vector3f;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -23,8 +22,11 @@ public class HolePreview {
     private World world;
     private Player player;
 
-    // 位置をキーとしてパネルを管理（差分更新用）
-    private Map<String, BlockDisplay> previewPanelMap;
+    // 表示中のパネル（投影マスクを長方形にまとめたもの、長方形ごとに1枚）
+    private List<BlockDisplay> previewPanels;
+    // パネルを作成したときの投影マスクと壁のZ座標（変化したときだけ作り直す）
+    private Set<Vector2i> panelMask;
+    private Integer panelWallZ;
 
     // 穴なぞり管理（状態管理のみ）
     private HoleTracingManager tracingManager;
@@ -32,18 +34,31 @@ public class HolePreview {
     // 前回の通過可否状態（白→緑の変化を検出するため）
     private Boolean lastCanPassThrough = null;
 
-    // 壁を探索する長さ
-    private static final int WALL_SEARCH_LENGTH = 100;
+    // 壁を探索する長さ（毎tickワールドを読む最も遠い距離、チャンクの先読み範囲もこれに合わせる）
+    static final int WALL_SEARCH_LENGTH = 100;
 
     // スコアボード管理
     private GameScoreTracker scoreTracker;
 
-    public HolePreview(World world, Player player, HoleTracingManager tracingManager, GameScoreTracker scoreTracker) {
+    // パネル用BlockDisplayのプール（セッション共通）
+    private DisplayPool displayPool;
+
+    // セッションのエンティティ管理（エフェクトを見せるプレイヤーの制御）
+    private RigEntities rig;
+
+    // 効果音のキュー（tickの終わりにまとめて鳴らす）
+    private SoundQueue sounds;
+
+    public HolePreview(World world, Player player, HoleTracingManager tracingManager, GameScoreTracker scoreTracker,
+            DisplayPool displayPool, RigEntities rig, SoundQueue sounds) {
         this.world = world;
         this.player = player;
-        this.previewPanelMap = new HashMap<>();
+        this.previewPanels = new ArrayList<>();
         this.tracingManager = tracingManager;
         this.scoreTracker = scoreTracker;
+        this.displayPool = displayPool;
+        this.rig = rig;
+        this.sounds = sounds;
     }
 
     /**
@@ -77,10 +92,10 @@ public class HolePreview {
             // 穴に入った瞬間
             if (holeState.hasHoleStateChanged()) {
                 // 音を鳴らす
-                GameSound.HOLE_ENTER.play(player);
+                sounds.add(GameSound.HOLE_ENTER);
                 // 穴の位置にパーティクルエフェクトを表示
                 cube.getCubeWallPositions(wallLocation).forEach(worldPos ->
-                    world.spawnParticle(Particle.END_ROD, worldPos.toCenterLocation(), 2, 0, 0, 0, 0.05));
+                    rig.spawnParticle(Particle.END_ROD, worldPos.toCenterLocation(), 2, 0, 0, 0, 0.05));
                 // プレビューを消す
                 clear();
             }
@@ -91,7 +106,7 @@ public class HolePreview {
         // まず、キューブの全ブロックが壁を通れるかチェック
         boolean canPassThrough = cube.getCubeWallPositions(wallLocation)
                 .allMatch(worldPos -> {
-                    Material material = world.getBlockAt(worldPos).getType();
+                    Material material = cube.getCourse().getType(worldPos);
                     return PlayerCube.isAir(material);
                 });
         // 現在の状態を記録
@@ -108,29 +123,29 @@ public class HolePreview {
         // 壁の穴は固定位置なので、キューブの回転に関係なく、壁の5x5範囲をチェック
         // この壁の穴位置を記録
         Set<Vector2i> holes = cube.getWallBlocks(wallLocation)
-                .filter(checkLoc -> PlayerCube.isAir(world.getBlockAt(checkLoc).getType()))
+                .filter(checkLoc -> PlayerCube.isAir(cube.getCourse().getType(checkLoc)))
                 .map(checkLoc -> new Vector2i(checkLoc.getBlockX(), checkLoc.getBlockY()))
                 .collect(Collectors.toSet());
         tracingManager.addHoles(holes);
 
+        // キューブの投影位置を取得（壁上の2次元座標）
+        Set<Vector2i> projection = cube.getCubeWallPositions(wallLocation)
+                .map(worldPos -> new Vector2i(worldPos.getBlockX(), worldPos.getBlockY()))
+                .collect(Collectors.toSet());
+
         // なぞり判定（HolePreviewが行う）
         // ★重要：緑（通れる）の時だけなぞり判定を行う
         if (canPassThrough && !tracingManager.isCompleted()) {
             Set<Vector2i> allHoles = tracingManager.getAllHoles();
 
-            // キューブの投影位置を取得（壁上の2次元座標）
-            Set<Vector2i> cubePositions = cube.getCubeWallPositions(wallLocation)
-                    .map(worldPos -> new Vector2i(worldPos.getBlockX(), worldPos.getBlockY()))
-                    .collect(Collectors.toSet());
-
             int oldSize = tracingManager.getTracedHoles().size();
-            tracingManager.markHoleTraced(cubePositions);
+            tracingManager.markHoleTraced(projection);
 
             // スコアボードに記録
             int newSize = tracingManager.getTracedHoles().size();
             if (newSize > oldSize) {
                 // なぞった穴の数が増えた場合、スコアボードを更新
-                scoreTracker.addScore(GameScoreTracker.OBJECTIVE_HOLES_TRACED, newSize - oldSize);
+                scoreTracker.addScore(GameScoreTracker.INDEX_HOLES_TRACED, newSize - oldSize);
             }
 
             // 完了判定もHolePreviewが行う
@@ -138,77 +153,60 @@ public class HolePreview {
                 // 完了時のエフェクトを表示
                 int cubeZ = cube.getCurrentLocation().getBlockZ();
                 allHoles.forEach(hole ->
-                    world.spawnParticle(Particle.HAPPY_VILLAGER, new Location(world, hole.x, hole.y, cubeZ - 3).toCenterLocation(), 1, 0, 0, 0, 0));
+                    rig.spawnParticle(Particle.HAPPY_VILLAGER, new Location(world, hole.x, hole.y, cubeZ - 3).toCenterLocation(), 1, 0, 0, 0, 0));
 
                 // 完了音を鳴らす
-                GameSound.HOLE_COMPLETE.play(player);
+                sounds.add(GameSound.HOLE_COMPLETE);
 
                 // スコアボードに完了を記録
-                scoreTracker.addScore(GameScoreTracker.OBJECTIVE_PERFECT_WALLS, 1);
+                scoreTracker.addScore(GameScoreTracker.INDEX_PERFECT_WALLS, 1);
+                scoreTracker.fire(DatapackBridge.Event.PERFECT_WALL);
             }
         }
 
-        // 現在必要なパネル位置のセットを作成
-        Set<String> currentPositions = new HashSet<>();
-
-        // キューブの全ブロック位置にプレビューパネルを表示
-        cube.getCubeWallPositions(wallLocation)
-                .forEach(worldPos -> {
-                    String posKey = worldPos.getBlockX() + "," + worldPos.getBlockY() + "," + worldPos.getBlockZ();
-                    currentPositions.add(posKey);
-
-                    // 既存のパネルがある場合は色を更新、ない場合は作成
-                    if (previewPanelMap.containsKey(posKey)) {
-                        BlockDisplay existingDisplay = previewPanelMap.get(posKey);
-                        // 色が変わった場合のみ更新
-                        if (existingDisplay.getBlock().getMaterial() != panelMaterial) {
-                            existingDisplay.setBlock(panelMaterial.createBlockData());
-                        }
-                    } else {
-                        // 新規作成
-                        BlockDisplay display = createPreviewPanel(worldPos, panelMaterial);
-                        previewPanelMap.put(posKey, display);
-                    }
-                });
-
-        // 不要になったパネルを削除
-        Set<String> toRemove = new HashSet<>();
-        for (String posKey : previewPanelMap.keySet()) {
-            if (!currentPositions.contains(posKey)) {
-                BlockDisplay display = previewPanelMap.get(posKey);
-                display.remove();
-                toRemove.add(posKey);
+        // 投影マスクが変わった場合のみ長方形を計算し直してパネルを置き直す
+        if (panelWallZ == null || panelWallZ != wallZ || !projection.equals(panelMask)) {
+            releasePanels();
+            for (PanelRectangle rectangle : PanelRectangle.merge(projection)) {
+                previewPanels.add(createPreviewPanel(rectangle, wallZ, panelMaterial));
             }
+            panelMask = projection;
+            panelWallZ = wallZ;
+            return;
         }
-        for (String posKey : toRemove) {
-            previewPanelMap.remove(posKey);
+
+        // マスクが同じ場合は色が変わったパネルだけ更新
+        for (BlockDisplay display : previewPanels) {
+            if (display.getBlock().getMaterial() != panelMaterial) {
+                display.setBlock(panelMaterial.createBlockData());
+            }
         }
     }
 
     /**
-     * プレビューパネルを作成
+     * プレビューパネルを作成（プールから借りて配置）
      * 
-     * @param location パネルの位置
-     * @param material パネルのマテリアル
-     * @return 作成されたBlockDisplay
+     * @param rectangle パネルを表示する長方形（壁上の2次元座標）
+     * @param wallZ     壁のZ座標
+     * @param material  パネルのマテリアル
+     * @return 配置したBlockDisplay
      */
-    private BlockDisplay createPreviewPanel(Location location, Material material) {
-        // BlockDisplayをスポーン（ブロックの中心）
-        Location spawnLoc = location.toCenterLocation().add(0, 0, -1);
-        BlockDisplay display = world.spawn(spawnLoc, BlockDisplay.class);
-        display.setBlock(material.createBlockData());
-        display.setBrightness(new BlockDisplay.Brightness(15, 15));
-
-        // Transformationを設定（0.8x0.8x0.1の薄型パネル）
+    private BlockDisplay createPreviewPanel(PanelRectangle rectangle, int wallZ, Material material) {
+        // プールからBlockDisplayを借りて長方形の左下ブロックの中心に移動
+        Location spawnLoc = new Location(world, rectangle.x, rectangle.y, wallZ).toCenterLocation().add(0, 0, -1);
+        BlockDisplay display = displayPool.acquire(spawnLoc, material);
+
+        // Transformationを設定（1マスあたり0.8x0.8、長方形の内側は隙間なしの薄型パネル）
         Transformation transformation = display.getTransformation();
 
         // スケールを設定（薄型パネル、Z方向が薄い）
-        Vector3f scale = new Vector3f(0.8f, 0.8f, 0.1f);
+        // 外周だけ0.1ずつ隙間を空ける
+        Vector3f scale = new Vector3f(rectangle.width - 0.2f, rectangle.height - 0.2f, 0.1f);
         transformation.getScale().set(scale);
 
         // 位置を調整（壁の1マス手前のブロック空間の奥側に配置）
-        // X: -0.4 でブロック中心から0.4左（0.8スケールの中心）
-        // Y: -0.4 でブロック中心から0.4下（0.8スケールの中心）
+        // X: -0.4 で左下ブロック中心から0.4左（パネルの左端）
+        // Y: -0.4 で左下ブロック中心から0.4下（パネルの下端）
         // Z: 0.45 でブロックの奥側（0.1スケールなので、壁側に薄型パネル）
         Vector3f translation = new Vector3f(-0.4f, -0.4f, 0.45f);
         transformation.getTranslation().set(translation);
@@ -222,14 +220,23 @@ public class HolePreview {
         return display;
     }
 
+    /**
+     * 表示中のパネルをすべてプールに返却
+     */
+    private void releasePanels() {
+        for (BlockDisplay display : previewPanels) {
+            displayPool.release(display);
+        }
+        previewPanels.clear();
+        panelMask = null;
+        panelWallZ = null;
+    }
+
     /**
      * プレビューをクリア
      */
     public void clear() {
-        for (BlockDisplay display : previewPanelMap.values()) {
-            display.remove();
-        }
-        previewPanelMap.clear();
+        releasePanels();
 
         // 通過可否状態をクリア
         lastCanPassThrough = null;
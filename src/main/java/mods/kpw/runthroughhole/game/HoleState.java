@@ -40,6 +40,15 @@ public class HoleState {
         return isInHole != prevIsInHole;
     }
 
+    /**
+     * 穴の外にいる状態に戻す（リスタート時）
+     */
+    public void reset() {
+        isInHole = false;
+        prevIsInHole = false;
+        lastHoleLocation = null;
+    }
+
     /**
      * 穴通過状態を更新
      * 
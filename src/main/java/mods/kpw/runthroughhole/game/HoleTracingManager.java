@@ -43,6 +43,15 @@ public class HoleTracingManager {
         tracedHoles.clear();
     }
 
+    /**
+     * 現在の壁をなしに戻す（リスタート時）
+     */
+    public void reset() {
+        currentWallZ = null;
+        allHoles.clear();
+        tracedHoles.clear();
+    }
+
     /**
      * 現在の壁に穴を追加
      *
@@ -0,0 +1,138 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Display;
+import org.bukkit.entity.Entity;
+import org.bukkit.util.Vector;
+import io.papermc.paper.entity.TeleportFlag;
+
+/**
+ * クライアント側のテレポート補間（teleport_duration）を使ってエンティティを動かすクラス
+ * 毎tickテレポートせず、一定間隔ごとに「間隔分先の予測位置」へテレポートし、その間はクライアントに補間させる
+ * クライアント上の位置を推定し、実際の位置とのずれが閾値を超えた場合はすぐに送り直す
+ * サーバー上のエンティティの位置は予測位置になるため、実際の位置はgetActualLocationで取得すること
+ */
+public class InterpolatedMover {
+    private final Entity entity;
+    private final int interval; // テレポートの最大間隔（tick）＝クライアントの補間時間
+    private final double epsilon; // 送り直すずれの閾値（ブロック）
+
+    private boolean initialized = false;
+    private final Vector lastActual = new Vector(); // 前tickの実際の位置（速度計算用）
+    private Location actualLocation; // 最後に受け取った実際の位置（向き・ワールドを含む）
+    private final Vector clientFrom = new Vector(); // クライアントの補間開始位置
+    private final Vector clientTo = new Vector(); // クライアントの補間目標位置
+    private final Vector clientNow = new Vector(); // クライアント上の現在位置の推定（使い回し）
+    private int ticksSinceSend = 0; // 最後に送ってからのtick数
+
+    /**
+     * コンストラクタ
+     *
+     * @param entity   動かすエンティティ（Displayの場合はteleport_durationを設定する）
+     * @param interval テレポートの最大間隔（tick）
+     * @param epsilon  送り直すずれの閾値（ブロック）
+     */
+    public InterpolatedMover(Entity entity, int interval, double epsilon) {
+        this.entity = entity;
+        this.interval = Math.max(1, interval);
+        this.epsilon = epsilon;
+
+        // クライアント側で間隔分かけて補間させる
+        if (entity instanceof Display display) {
+            display.setTeleportDuration(this.interval);
+        }
+    }
+
+    /**
+     * 実際の位置を反映（毎tick呼び出される）
+     * 必要な場合のみテレポートを送る
+     *
+     * @param actual 今tickの実際の位置（向きもそのまま使う）
+     * @return テレポートを送った場合はtrue
+     */
+    public boolean update(Location actual) {
+        double x = actual.getX(), y = actual.getY(), z = actual.getZ();
+
+        if (!initialized) {
+            snap(actual);
+            return true;
+        }
+
+        // クライアント上の現在位置を推定
+        ticksSinceSend++;
+        Vector client = estimateClientPosition();
+        double clientX = client.getX(), clientY = client.getY(), clientZ = client.getZ();
+
+        // 1tickあたりの速度
+        double velocityX = x - lastActual.getX();
+        double velocityY = y - lastActual.getY();
+        double velocityZ = z - lastActual.getZ();
+        lastActual.setX(x).setY(y).setZ(z);
+        actualLocation = actual.clone();
+
+        // ずれが小さく、間隔内であれば送らない
+        double dx = x - clientX, dy = y - clientY, dz = z - clientZ;
+        boolean drifted = dx * dx + dy * dy + dz * dz > epsilon * epsilon;
+        if (!drifted && ticksSinceSend < interval) {
+            return false;
+        }
+
+        // 間隔分先の予測位置へテレポート（クライアントは今の位置から補間し、次の送信時点で実際の位置に揃う）
+        clientFrom.setX(clientX).setY(clientY).setZ(clientZ);
+        clientTo.setX(x + velocityX * interval).setY(y + velocityY * interval).setZ(z + velocityZ * interval);
+        ticksSinceSend = 0;
+
+        Location target = actual.clone();
+        target.setX(clientTo.getX());
+        target.setY(clientTo.getY());
+        target.setZ(clientTo.getZ());
+        entity.teleport(target, TeleportFlag.EntityState.RETAIN_PASSENGERS);
+        return true;
+    }
+
+    /**
+     * 予測を使わずに実際の位置へすぐにテレポート（停止時など）
+     *
+     * @param actual 実際の位置
+     */
+    public void snap(Location actual) {
+        double x = actual.getX(), y = actual.getY(), z = actual.getZ();
+
+        // クライアントは今の位置から実際の位置へ補間する
+        if (initialized) {
+            Vector client = estimateClientPosition();
+            clientFrom.setX(client.getX()).setY(client.getY()).setZ(client.getZ());
+        } else {
+            clientFrom.setX(x).setY(y).setZ(z);
+        }
+        clientTo.setX(x).setY(y).setZ(z);
+        lastActual.setX(x).setY(y).setZ(z);
+        actualLocation = actual.clone();
+        ticksSinceSend = 0;
+        initialized = true;
+
+        entity.teleport(actual, TeleportFlag.EntityState.RETAIN_PASSENGERS);
+    }
+
+    /**
+     * 最後に反映した実際の位置を取得（エンティティの位置は予測位置なので、位置を参照する場合はこちらを使う）
+     *
+     * @return 実際の位置（まだ反映していない場合はエンティティの位置）
+     */
+    public Location getActualLocation() {
+        return actualLocation != null ? actualLocation.clone() : entity.getLocation();
+    }
+
+    /**
+     * クライアント上の現在位置を推定（送った時点から線形に補間される）
+     *
+     * @return 推定位置
+     */
+    private Vector estimateClientPosition() {
+        double t = Math.min(1.0, (double) ticksSinceSend / interval);
+        return clientNow
+                .setX(clientFrom.getX() + (clientTo.getX() - clientFrom.getX()) * t)
+                .setY(clientFrom.getY() + (clientTo.getY() - clientFrom.getY()) * t)
+                .setZ(clientFrom.getZ() + (clientTo.getZ() - clientFrom.getZ()) * t);
+    }
+}
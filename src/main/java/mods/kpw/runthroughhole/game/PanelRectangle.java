@@ -0,0 +1,101 @@
+package mods.kpw.runthroughhole.game;
+
+import org.joml.Vector2i;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 2次元のセル集合をまとめた長方形
+ * プレビューパネルを1マスごとではなく長方形ごとに1枚で表示するために使用
+ */
+public class PanelRectangle {
+    public final int x; // 左下のX座標
+    public final int y; // 左下のY座標
+    public final int width; // X方向のセル数
+    public final int height; // Y方向のセル数
+
+    public PanelRectangle(int x, int y, int width, int height) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * セル集合を長方形にまとめる（横に伸ばしてから縦に伸ばすGreedy方式）
+     * 壁の大きさに依存せず、セル集合の外接矩形の範囲だけを走査する
+     *
+     * @param cells セルの2次元座標
+     * @return 長方形のリスト（セルが空の場合は空リスト）
+     */
+    public static List<PanelRectangle> merge(Collection<Vector2i> cells) {
+        List<PanelRectangle> result = new ArrayList<>();
+        if (cells.isEmpty()) {
+            return result;
+        }
+
+        // 外接矩形を求める
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (Vector2i cell : cells) {
+            minX = Math.min(minX, cell.x);
+            minY = Math.min(minY, cell.y);
+            maxX = Math.max(maxX, cell.x);
+            maxY = Math.max(maxY, cell.y);
+        }
+
+        // マスクを作成
+        int sizeX = maxX - minX + 1;
+        int sizeY = maxY - minY + 1;
+        boolean[][] mask = new boolean[sizeX][sizeY];
+        for (Vector2i cell : cells) {
+            mask[cell.x - minX][cell.y - minY] = true;
+        }
+
+        // 下の行から順に、未使用のセルを起点に長方形を伸ばす
+        for (int y = 0; y < sizeY; y++) {
+            for (int x = 0; x < sizeX; x++) {
+                if (!mask[x][y]) {
+                    continue;
+                }
+
+                // 横方向に伸ばす
+                int width = 1;
+                while (x + width < sizeX && mask[x + width][y]) {
+                    width++;
+                }
+
+                // 縦方向に、同じ幅がすべて埋まっている限り伸ばす
+                int height = 1;
+                while (y + height < sizeY && isRowFilled(mask, x, width, y + height)) {
+                    height++;
+                }
+
+                // 使用済みにする
+                for (int dx = 0; dx < width; dx++) {
+                    for (int dy = 0; dy < height; dy++) {
+                        mask[x + dx][y + dy] = false;
+                    }
+                }
+
+                result.add(new PanelRectangle(minX + x, minY + y, width, height));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 指定した行の範囲がすべて埋まっているか判定
+     */
+    private static boolean isRowFilled(boolean[][] mask, int x, int width, int y) {
+        for (int dx = 0; dx < width; dx++) {
+            if (!mask[x + dx][y]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
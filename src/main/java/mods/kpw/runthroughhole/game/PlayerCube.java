@@ -3,13 +3,8 @@ package mods.kpw.runthroughhole.game;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
 import org.bukkit.entity.BlockDisplay;
-import org.bukkit.entity.EntityType;
-import org.bukkit.entity.LivingEntity;
-import org.bukkit.potion.PotionEffect;
-import org.bukkit.potion.PotionEffectType;
-import io.papermc.paper.entity.TeleportFlag;
+import org.bukkit.entity.Display;
 import org.bukkit.util.Transformation;
 import org.bukkit.util.Vector;
 import org.joml.Quaternionf;
@@ -31,18 +26,33 @@ public class PlayerCube {
     // 衝突チェック用の位置オフセット（Z方向に0.5ブロック前方）
     public static final Vector3f COLLISION_CHECK_OFFSET = new Vector3f(0, 0, 0.5f);
 
-    // 複数のブロックを管理
+    // 複数のブロックを管理（当たり判定用のセル単位）
     private List<CubeBlock> blocks;
 
+    // 描画用の直方体分割と、直方体ごとのBlockDisplay（最後に送った状態付き）
+    private CubeMesh mesh;
+    private List<DisplayRenderState> boxRenders;
+    // 衝突したセルだけを示す一時的なBlockDisplay（直方体ごと色を変えると、どのセルが当たったか分からないため）
+    private final List<BlockDisplay> highlights = new ArrayList<>();
+    private RigEntities highlightRig; // 一時的なBlockDisplayを登録したエンティティ管理
+    private int orientationIndex = 0; // 現在の向き（CubeMeshの24通りのインデックス）
+
     public Quaternionf rotation;
     public Vector3f gridPosition; // グリッド位置（ブロック単位）
 
     private Location baseLocation; // 基準位置（プレイヤーの固定位置）
     private World world;
+    private CourseBlocks course; // 当たり判定・穴判定で参照するコースのブロック
     private GameScoreTracker scoreTracker; // スコアトラッカー
 
-    // 蜂エンティティ（最適化用）
-    private LivingEntity entity;
+    // キャリアエンティティ（BlockDisplayを乗せて一緒に動かす、中身のないDisplay）
+    private Display entity;
+    private RigPool.Rig rig; // プールから割り当てられたリグ（nullの場合は自分でスポーン・削除する）
+    private InterpolatedMover entityMover; // キャリアの移動（クライアント側補間）
+
+    // キャリアの位置更新の最大間隔（tick）と、送り直すずれの閾値（ブロック）
+    private static final int CARRIER_UPDATE_INTERVAL = 4;
+    private static final double CARRIER_POSITION_EPSILON = 0.05;
 
     // エンティティの高さオフセット（プレイヤーが乗る位置を考慮）
     // 将来的にCubeCameraのような高度な位置調整で使用予定
@@ -54,6 +64,9 @@ public class PlayerCube {
     // BlockDisplayのTransformation用オフセット（エンティティの高さ分を補正）
     private static final double BLOCKDISPLAY_HEIGHT_OFFSET = 0; // BlockDisplayの高さ補正（ブロック単位）
 
+    // 衝突セルの強調表示を直方体より外側に広げる量（重なった面がちらつかないように）
+    private static final float HIGHLIGHT_INFLATE = 0.01f;
+
     // 3x3x3のブロック配列（テトリミノ風）
     public boolean[][][] blockShape = new boolean[CUBE_RANGE * 2 + 1][CUBE_RANGE * 2 + 1][CUBE_RANGE * 2 + 1];
 
@@ -71,10 +84,32 @@ public class PlayerCube {
     // 減速タイマー（壁に近づいたときの停止処理用）
     private static final int SLOW_TIMEOUT_TICKS = 40; // 2秒 = 40tick
     private int slowdownTicks = 0; // 減速している時間（tick単位）
+    private double lastDistanceToWall = -1.0; // 最後に前進したときの前方の壁との距離（HUDでも使う）
+
+    // チェックポイント（最後に穴を抜けた直後のグリッドのZ位置）
+    private int checkpointZ = 0;
     
     // 穴通過状態管理
     private HoleState holeState;
 
+    /**
+     * 当たり判定・穴判定で参照するコースのブロックを設定（練習モードの仮想の壁など）
+     *
+     * @param course コースのブロック
+     */
+    public void setCourse(CourseBlocks course) {
+        this.course = course;
+    }
+
+    /**
+     * 当たり判定・穴判定で参照するコースのブロックを取得
+     *
+     * @return コースのブロック
+     */
+    public CourseBlocks getCourse() {
+        return course;
+    }
+
     public float getForwardProgress() {
         return forwardProgress;
     }
@@ -89,17 +124,34 @@ public class PlayerCube {
     }
 
     public PlayerCube(World world, Location baseLocation, boolean[][][] pattern, GameScoreTracker scoreTracker) {
+        this(world, baseLocation, pattern, scoreTracker, null);
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param world        ワールド
+     * @param baseLocation 基準位置
+     * @param pattern      ブロックパターン（3x3x3の配列）
+     * @param scoreTracker スコアトラッカー
+     * @param rig          プールから割り当てられたリグ（nullの場合はエンティティをスポーンする）
+     */
+    public PlayerCube(World world, Location baseLocation, boolean[][][] pattern, GameScoreTracker scoreTracker,
+            RigPool.Rig rig) {
         if (pattern == null || pattern.length != 3 || pattern[0].length != 3 || pattern[0][0].length != 3) {
             throw new IllegalArgumentException("パターンは3x3x3の配列である必要があります");
         }
 
         this.world = world;
+        this.course = CourseBlocks.of(world);
         this.baseLocation = baseLocation;
         this.gridPosition = new Vector3f(0, 0, 0);
         this.blocks = new ArrayList<>();
+        this.boxRenders = new ArrayList<>();
         this.rotation = new Quaternionf();
         this.holeState = new HoleState();
         this.scoreTracker = scoreTracker;
+        this.rig = rig;
 
         // パターンを設定
         for (int x = 0; x < 3; x++) {
@@ -110,57 +162,68 @@ public class PlayerCube {
             }
         }
 
-        // 蜂エンティティを初期化
+        // キャリアエンティティを初期化
         initializeEntity();
 
         // BlockDisplayを生成
         createDisplays();
     }
 
-    // 蜂エンティティを初期化
+    // キャリアエンティティを初期化
     private void initializeEntity() {
-        // 蜂エンティティをスポーン
+        // 中身のないBlockDisplayをスポーン（LivingEntityと違いAIやポーション効果の処理がない）
         Location spawnLocation = baseLocation.clone().add(0, ENTITY_HEIGHT_ADJUSTMENT, 0);
-        entity = (LivingEntity) world.spawnEntity(spawnLocation, EntityType.BEE);
+        if (rig != null) {
+            // プールのリグのキャリアを使う
+            entity = rig.carrier;
+            entity.teleport(spawnLocation);
+        } else {
+            // 追加する前に非表示にしておく（見せるプレイヤーはRigEntitiesで決める）
+            entity = world.spawn(spawnLocation, BlockDisplay.class, e -> e.setVisibleByDefault(false));
+        }
 
-        // エンティティの設定（最適化案に従って）
-        entity.setInvulnerable(true);
-        entity.setGravity(false);
-        entity.setSilent(true);
-        entity.setAI(false);
-        entity.addPotionEffect(new PotionEffect(PotionEffectType.INVISIBILITY, Integer.MAX_VALUE, 0, false, false));
+        // 位置はteleport_durationでクライアント側に補間させる
+        entityMover = new InterpolatedMover(entity, CARRIER_UPDATE_INTERVAL, CARRIER_POSITION_EPSILON);
 
-        // エンティティの高さを取得（プレイヤーが乗る位置のオフセット）
+        // エンティティの高さを取得（乗せたBlockDisplayの位置のオフセット、Displayは0）
         this.entityHeightOffset = entity.getHeight();
     }
 
-    // 3x3x3配列に基づいてBlockDisplayを生成
+    // 3x3x3配列に基づいてBlockDisplayを生成（埋まったセルを直方体にまとめ、直方体ごとに1つ）
     private void createDisplays() {
         // 既存のブロックをクリア
-        for (CubeBlock block : blocks) {
-            block.display.remove();
-        }
+        releaseBoxDisplays();
         blocks.clear();
 
-        // blockShape配列をスキャンして、trueのブロックに対してDisplayを作成
-        getCubeOffsets()
-                .forEach(offset -> {
-                    // BlockDisplayをスポーン
-                    BlockDisplay display = world.spawn(baseLocation, BlockDisplay.class);
-                    display.setBlock(Material.GLASS.createBlockData());
-                    display.setBrightness(new BlockDisplay.Brightness(15, 15));
+        // 形状を直方体に分割（回転ごとの配置も事前計算される）
+        mesh = new CubeMesh(blockShape);
 
-                    // Interpolationの初期設定
-                    display.setInterpolationDuration(10); // 10tick = 0.5秒でスムーズに移動
-                    display.setInterpolationDelay(0);
+        // 直方体ごとにBlockDisplayをスポーン
+        for (int i = 0; i < mesh.getBoxes().size(); i++) {
+            BlockDisplay display = rig != null ? rig.takeBox(baseLocation)
+                    : world.spawn(baseLocation, BlockDisplay.class, e -> e.setVisibleByDefault(false));
+            display.setBrightness(new BlockDisplay.Brightness(15, 15));
 
-                    // Blockオブジェクトを作成してリストに追加
-                    blocks.add(new CubeBlock(display, offset));
-                });
+            DisplayRenderState render = new DisplayRenderState(display);
+            render.setMaterial(Material.GLASS);
+            boxRenders.add(render);
+        }
 
-        // 各BlockDisplayを蜂エンティティにマウント
-        for (CubeBlock block : blocks) {
-            entity.addPassenger(block.display);
+        // blockShape配列をスキャンして、trueのセルを所属する直方体のDisplayと紐付ける
+        for (int x = -CUBE_RANGE; x <= CUBE_RANGE; x++) {
+            for (int y = -CUBE_RANGE; y <= CUBE_RANGE; y++) {
+                for (int z = -CUBE_RANGE; z <= CUBE_RANGE; z++) {
+                    int boxIndex = mesh.getBoxIndex(x, y, z);
+                    if (boxIndex >= 0) {
+                        blocks.add(new CubeBlock(boxRenders.get(boxIndex).getDisplay(), new Vector3f(x, y, z)));
+                    }
+                }
+            }
+        }
+
+        // 各BlockDisplayをキャリアエンティティにマウント
+        for (DisplayRenderState render : boxRenders) {
+            entity.addPassenger(render.getDisplay());
         }
 
         // 初回配置時に正しい位置に更新
@@ -178,14 +241,14 @@ public class PlayerCube {
         this.gridPosition.add(delta);
         // XY移動はTransformationで更新（Zは触らない）
         updateTransformation();
-        scoreTracker.addScore(GameScoreTracker.OBJECTIVE_MOVE_COUNT, 1);
+        scoreTracker.addScore(GameScoreTracker.INDEX_MOVE_COUNT, 1);
         return true; // 移動成功
     }
 
     // 加速状態を設定
     public void setBoosting(boolean boosting) {
         this.isBoosting = boosting;
-        scoreTracker.setScore(GameScoreTracker.OBJECTIVE_IS_BOOSTING, boosting ? 1 : 0);
+        scoreTracker.setScore(GameScoreTracker.INDEX_IS_BOOSTING, boosting ? 1 : 0);
     }
 
     public boolean isContinuousBoosting() {
@@ -212,6 +275,7 @@ public class PlayerCube {
     public void autoForward() {
         // 前方の壁との距離を取得
         double distanceToWall = getDistanceToNextWall();
+        lastDistanceToWall = distanceToWall;
 
         // 速度を決定
         float currentSpeed;
@@ -266,21 +330,78 @@ public class PlayerCube {
         // 穴に入った瞬間に壁通過イベントを発火
         if (holeState.isInHole() && holeState.hasHoleStateChanged()) {
             // 壁通過をスコアに記録
-            scoreTracker.addScore(GameScoreTracker.OBJECTIVE_WALLS_PASSED, 1);
+            scoreTracker.addScore(GameScoreTracker.INDEX_WALLS_PASSED, 1);
+            scoreTracker.fire(DatapackBridge.Event.WALL_PASSED);
+        } else if (!holeState.isInHole() && holeState.hasHoleStateChanged()) {
+            // 穴を抜けきったらチェックポイントを更新（キューブの後ろの面が壁から離れる位置）
+            checkpointZ = (int) gridPosition.z + CUBE_RANGE;
         }
 
         // Z位置のみテレポートで更新（毎tick）
         updateZPosition();
     }
 
-    // Z軸位置のみテレポートで更新（最適化版：蜂エンティティのみテレポート）
+    // Z軸位置のみ更新（最適化版：キャリアエンティティのみ動かす）
     private void updateZPosition() {
-        double worldZ = baseLocation.getZ() + gridPosition.z + forwardProgress;
+        // キャリアエンティティのみを動かす（BlockDisplayは自動追従）
+        // 毎tickではなく、予測位置へのテレポートをクライアントに補間させる
+        entityMover.update(getEntityLocation());
+    }
+
+    /**
+     * キャリアエンティティを予測なしで現在位置に合わせる（ゲームオーバーで停止したときなど）
+     */
+    public void snapEntityPosition() {
+        if (entityMover != null) {
+            entityMover.snap(getEntityLocation());
+        }
+    }
 
-        // 蜂エンティティのみをテレポート（BlockDisplayは自動追従）
-        Location entityLoc = entity.getLocation();
+    /**
+     * キューブを指定したZ位置の開始状態に戻す（リスタート・チェックポイントからの再開用）
+     * エンティティは作り直さず、位置・向き・加速・穴通過状態だけをリセットする
+     *
+     * @param gridZ 戻すグリッドのZ位置（0で開始位置）
+     */
+    public void reset(int gridZ) {
+        gridPosition.set(0, 0, gridZ);
+        forwardProgress = 0f;
+        orientationIndex = 0;
+        rotation.identity();
+        slowdownTicks = 0;
+        lastDistanceToWall = -1.0;
+        isContinuousBoosting = false;
+        if (isBoosting) {
+            setBoosting(false);
+        }
+        holeState.reset();
+        if (gridZ == 0) {
+            checkpointZ = 0;
+        }
+
+        // ゲームオーバーで表示した衝突セルを消す
+        removeHighlights();
+
+        // XY位置と向きを戻し、キャリアを予測なしで戻した位置に合わせる
+        updateTransformation();
+        snapEntityPosition();
+    }
+
+    /**
+     * チェックポイント（最後に穴を抜けた直後のグリッドのZ位置）を取得
+     *
+     * @return チェックポイント（まだ穴を抜けていない場合は0）
+     */
+    public int getCheckpointZ() {
+        return checkpointZ;
+    }
+
+    // キャリアエンティティの実際の位置
+    private Location getEntityLocation() {
+        double worldZ = baseLocation.getZ() + gridPosition.z + forwardProgress;
+        Location entityLoc = baseLocation.clone().add(0, ENTITY_HEIGHT_ADJUSTMENT, 0);
         entityLoc.setZ(worldZ);
-        entity.teleport(entityLoc, TeleportFlag.EntityState.RETAIN_PASSENGERS);
+        return entityLoc;
     }
 
     // 回転を適用
@@ -291,48 +412,41 @@ public class PlayerCube {
             return false;
         }
 
-        // 現在の回転に新しい回転を適用
+        // 現在の回転に新しい回転を適用（24通りの向きにスナップして誤差の蓄積を防ぐ）
         Quaternionf rotation = new Quaternionf()
                 .mul(newRotation)
                 .mul(this.rotation);
-        this.rotation = rotation;
+        this.orientationIndex = CubeMesh.getOrientationIndex(rotation);
+        this.rotation = new Quaternionf(CubeMesh.getOrientation(orientationIndex));
 
         updateTransformation();
-        scoreTracker.addScore(GameScoreTracker.OBJECTIVE_ROTATION_COUNT, 1);
+        scoreTracker.addScore(GameScoreTracker.INDEX_ROTATION_COUNT, 1);
         return true; // 回転成功
     }
 
     // BlockDisplayのTransformationを更新（XY位置と回転）
+    // 変化したBlockDisplayだけが送信される（移動のみの場合は回転を送り直さない）
     private void updateTransformation() {
-        // 各BlockDisplayを更新
-        for (CubeBlock block : blocks) {
-            Transformation transformation = block.display.getTransformation();
-
-            // アニメーション設定（移動・回転共通）
-            block.display
-                    .setInterpolationDuration(Math.max(MOVE_INTERPOLATION_DURATION, ROTATION_INTERPOLATION_DURATION)); // 移動・回転時のInterpolation時間
-            block.display.setInterpolationDelay(0);
-
-            // ブロックのローカルオフセットに回転を適用
-            Vector3f rotatedOffset = new Vector3f(block.offset);
-            rotatedOffset.rotate(rotation);
-
-            // BlockDisplayの中心オフセット（-0.5, -0.5, -0.5）に回転を適用
-            Vector3f centerOffset = new Vector3f(-0.5f, -0.5f, -0.5f);
-            centerOffset.rotate(rotation);
-
-            // XY方向の相対位置（Z=0、Zはテレポートで管理）
-            // BlockDisplayの高さオフセットを適用（エンティティの高さ分を補正）
-            Vector3f translation = new Vector3f(gridPosition.x,
-                    gridPosition.y + (float) (BLOCKDISPLAY_HEIGHT_OFFSET - entityHeightOffset), 0);
-            translation.add(rotatedOffset);
-            translation.add(centerOffset);
-
-            // Transformationに設定
-            transformation.getLeftRotation().set(rotation);
-            transformation.getTranslation().set(translation);
-
-            block.display.setTransformation(transformation);
+        // XY方向の相対位置（Z=0、Zはテレポートで管理）
+        // BlockDisplayの高さオフセットを適用（エンティティの高さ分を補正）
+        float baseX = gridPosition.x;
+        float baseY = gridPosition.y + (float) (BLOCKDISPLAY_HEIGHT_OFFSET - entityHeightOffset);
+        Quaternionf orientation = CubeMesh.getOrientation(orientationIndex);
+        int interpolationDuration = Math.max(MOVE_INTERPOLATION_DURATION, ROTATION_INTERPOLATION_DURATION); // 移動・回転時のInterpolation時間
+
+        // 各直方体のBlockDisplayを更新
+        for (int i = 0; i < boxRenders.size(); i++) {
+            CubeMesh.Box box = mesh.getBoxes().get(i);
+
+            // 事前計算済みの配置オフセット（直方体の角に回転を適用したもの）
+            Vector3f origin = mesh.getRotatedOrigin(orientationIndex, i);
+
+            // 直方体のサイズに拡大してから回転
+            boxRenders.get(i).update(
+                    baseX + origin.x, baseY + origin.y, origin.z,
+                    orientation,
+                    box.size.x, box.size.y, box.size.z,
+                    interpolationDuration);
         }
     }
 
@@ -348,8 +462,7 @@ public class PlayerCube {
                     Location blockWorldLoc = getBlockWorldLocation(block, positionOffset, testRotation);
 
                     // その座標のブロックをチェック
-                    Block blockAt = world.getBlockAt(blockWorldLoc);
-                    Material material = blockAt.getType();
+                    Material material = course.getType(blockWorldLoc);
 
                     // 衝突判定（AIR系とGLASS以外に衝突）
                     return material != Material.AIR
@@ -372,8 +485,7 @@ public class PlayerCube {
         for (int dx = -2; dx <= 2; dx++) {
             for (int dy = -2; dy <= 2; dy++) {
                 Location checkLoc = currentBlockLocation.clone().add(dx, dy, 0);
-                Block block = world.getBlockAt(checkLoc);
-                Material material = block.getType();
+                Material material = course.getType(checkLoc);
 
                 if (material == Material.AIR || material == Material.CAVE_AIR || material == Material.VOID_AIR) {
                     airCount++;
@@ -392,19 +504,61 @@ public class PlayerCube {
         return null;
     }
 
-    // 特定のブロックの色を変更
-    public void changeBlockColor(CubeBlock block, Material material) {
-        if (block != null && block.display != null) {
-            block.display.setBlock(material.createBlockData());
+    // 衝突したセルを強調表示（セルだけの一時的なBlockDisplayを直方体に重ねる）
+    // 直方体の色は変えない（同じ直方体にまとめられた他のセルまで変わってしまうため）
+    public void highlightBlock(CubeBlock block, Material material, RigEntities rigEntities) {
+        if (block == null || entity == null) {
+            return;
+        }
+
+        // セルの中心（キャリアからの相対位置）に、少し大きくしたセルを重ねる
+        Vector3f center = new Vector3f(block.offset).rotate(rotation)
+                .add(gridPosition.x, gridPosition.y + (float) (BLOCKDISPLAY_HEIGHT_OFFSET - entityHeightOffset), 0);
+        float size = 1.0f + HIGHLIGHT_INFLATE * 2;
+        Transformation transformation = new Transformation(
+                new Vector3f(center).sub(size / 2, size / 2, size / 2),
+                new Quaternionf(),
+                new Vector3f(size, size, size),
+                new Quaternionf());
+
+        // 見せるプレイヤーはエンティティ管理で決めるので、スポーン時は誰にも見せない
+        BlockDisplay display = world.spawn(getCarrierLocation(), BlockDisplay.class, d -> {
+            d.setVisibleByDefault(false);
+            d.setPersistent(false);
+            d.setBlock(material.createBlockData());
+            d.setBrightness(new BlockDisplay.Brightness(15, 15));
+            d.setTransformation(transformation);
+        });
+        entity.addPassenger(display);
+        highlights.add(display);
+
+        highlightRig = rigEntities;
+        if (rigEntities != null) {
+            rigEntities.add(display);
         }
     }
 
-    // 特定のブロックの位置を取得（演出用）
+    // 衝突セルの強調表示を削除
+    private void removeHighlights() {
+        for (BlockDisplay display : highlights) {
+            if (highlightRig != null) {
+                highlightRig.remove(display);
+            }
+            display.remove();
+        }
+        highlights.clear();
+    }
+
+    // 特定のブロック（セル）の中心位置を取得（演出用）
     public Location getBlockDisplayLocation(CubeBlock block) {
-        if (block != null && block.display != null) {
-            return block.display.getLocation();
+        if (block == null || entity == null) {
+            return null;
         }
-        return null;
+        Vector3f rotatedOffset = new Vector3f(block.offset).rotate(rotation);
+        return getEntityLocation().add(
+                gridPosition.x + rotatedOffset.x,
+                gridPosition.y + rotatedOffset.y + BLOCKDISPLAY_HEIGHT_OFFSET - entityHeightOffset,
+                rotatedOffset.z);
     }
 
     // 各ブロックのワールド座標を計算（位置オフセットと回転指定可能）
@@ -437,29 +591,102 @@ public class PlayerCube {
     }
 
     /**
-     * 蜂エンティティを取得（他のシステムがBlockDisplayをマウントするため）
+     * キューブの現在のX座標を取得（Locationを作らない）
+     *
+     * @return キューブの現在のX座標
+     */
+    public double getCurrentX() {
+        return baseLocation.getX() + gridPosition.x;
+    }
+
+    /**
+     * キューブの現在のY座標を取得（Locationを作らない）
+     *
+     * @return キューブの現在のY座標
+     */
+    public double getCurrentY() {
+        return baseLocation.getY() + gridPosition.y;
+    }
+
+    /**
+     * キューブの現在のZ座標を取得（Locationを作らない）
      *
-     * @return 蜂エンティティ
+     * @return キューブの現在のZ座標
      */
-    public LivingEntity getEntity() {
+    public double getCurrentZ() {
+        return baseLocation.getZ() + gridPosition.z + forwardProgress;
+    }
+
+    /**
+     * キャリアエンティティの実際の位置を取得
+     * エンティティ自体は予測位置にテレポートしているため、位置を参照する場合はこちらを使う
+     *
+     * @return キャリアの実際の位置
+     */
+    public Location getCarrierLocation() {
+        return getEntityLocation();
+    }
+
+    /**
+     * キャリアエンティティを取得（他のシステムがBlockDisplayをマウントするため）
+     * 位置は予測位置なので参照しないこと（getCarrierLocationを使う）
+     *
+     * @return キャリアエンティティ
+     */
+    public Display getEntity() {
         return entity;
     }
 
-    // クリーンアップ
-    public void remove() {
-        for (CubeBlock block : blocks) {
-            if (block.display != null) {
-                block.display.remove();
-            }
+    /**
+     * キューブを描画しているBlockDisplayを取得
+     *
+     * @return 直方体ごとのBlockDisplayのリスト
+     */
+    public List<BlockDisplay> getDisplays() {
+        List<BlockDisplay> displays = new ArrayList<>();
+        for (DisplayRenderState render : boxRenders) {
+            displays.add(render.getDisplay());
         }
+        return displays;
+    }
+
+    // クリーンアップ（プールのリグの場合は削除せずに返却する）
+    public void remove() {
+        removeHighlights();
+        releaseBoxDisplays();
         blocks.clear();
 
-        // 蜂エンティティも削除
+        // キャリアエンティティも削除
         if (entity != null) {
-            entity.remove();
+            if (rig != null) {
+                entity.eject();
+            } else {
+                entity.remove();
+            }
         }
     }
 
+    // 直方体ごとのBlockDisplayを削除（プールのリグの場合は返却）
+    private void releaseBoxDisplays() {
+        for (DisplayRenderState render : boxRenders) {
+            if (rig != null) {
+                rig.returnBox(render.getDisplay());
+            } else {
+                render.getDisplay().remove();
+            }
+        }
+        boxRenders.clear();
+    }
+
+    /**
+     * プールから割り当てられたリグを取得
+     *
+     * @return リグ（自分でスポーンした場合はnull）
+     */
+    public RigPool.Rig getRig() {
+        return rig;
+    }
+
     /**
      * キューブの有効なブロックのoffsetをStreamとして返す
      * 
@@ -551,7 +778,7 @@ public class PlayerCube {
 
             // 5x5範囲でブロックとAIRをカウント
             long blockCount = getWallBlocks(checkLocation)
-                    .filter(checkLoc -> !isAir(world.getBlockAt(checkLoc).getType()))
+                    .filter(checkLoc -> !isAir(course.getType(checkLoc)))
                     .count();
 
             // ブロックが10個以上あれば「穴開き壁」と判定
@@ -627,7 +854,7 @@ public class PlayerCube {
 
         // 壁が通れるかチェック（キューブの形状が壁の穴と一致するか）
         boolean canPassThrough = getCubeWallPositions(wallLocation)
-                .allMatch(location -> isAir(world.getBlockAt(location).getType()));
+                .allMatch(location -> isAir(course.getType(location)));
 
         // 通れる壁の場合は-2を返す
         if (canPassThrough) {
@@ -637,14 +864,22 @@ public class PlayerCube {
         return minDistance;
     }
 
+    /**
+     * 最後に前進したときの前方の壁との距離（同じtickで計算し直さないように使う）
+     *
+     * @return 壁との最短距離（壁が見つからない場合は-1、通れる壁の場合は-2）
+     */
+    public double getLastDistanceToWall() {
+        return lastDistanceToWall;
+    }
+
     /**
      * 壁接近警告が必要かどうかを判定
      *
      * @return 警告が必要な場合はtrue
      */
     public boolean shouldShowWarning() {
-        double distance = getDistanceToNextWall();
         // 3ブロック以内 & 通れない壁の場合
-        return distance >= 0 && distance <= 3;
+        return lastDistanceToWall >= 0 && lastDistanceToWall <= 3;
     }
 }
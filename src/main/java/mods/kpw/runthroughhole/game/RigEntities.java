@@ -0,0 +1,300 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 1セッション分のゲーム用エンティティ（キューブ・カメラ・プレビュー）をまとめて管理するクラス
+ * 更新パケットのまとめ送信への登録と、見せるプレイヤーの制御（VisibilityPolicy）を行う
+ */
+public class RigEntities {
+    private final JavaPlugin plugin;
+    private final EntityPacketBundler packetBundler; // nullの場合はまとめない
+    private final VisibilityPolicy policy;
+    private final double radius; // NEARBYのときの距離（ブロック）
+    private final EffectBudget effects; // 演出の予算と詳細度（nullの場合は制限しない）
+
+    private Player owner; // プレイしているプレイヤー
+
+    // 管理しているエンティティ
+    private final List<Entity> entities = new ArrayList<>();
+    // 現在エンティティを見せているプレイヤー（本人以外）
+    private final Set<UUID> viewers = new HashSet<>();
+
+    /**
+     * コンストラクタ
+     *
+     * @param plugin        プラグイン
+     * @param packetBundler 更新パケットのまとめ送信（nullの場合はまとめない）
+     * @param owner         プレイしているプレイヤー
+     * @param policy        見せるプレイヤーの方針
+     * @param radius        NEARBYのときの距離（ブロック）
+     * @param effects       演出の予算と詳細度（nullの場合は制限しない）
+     */
+    public RigEntities(JavaPlugin plugin, EntityPacketBundler packetBundler, Player owner, VisibilityPolicy policy,
+            double radius, EffectBudget effects) {
+        this.plugin = plugin;
+        this.packetBundler = packetBundler;
+        this.owner = owner;
+        this.policy = policy;
+        this.radius = radius;
+        this.effects = effects;
+    }
+
+    /**
+     * エンティティを追加（スポーンした直後、同じtick内に呼ぶこと）
+     *
+     * @param entity 追加するエンティティ（nullの場合は何もしない）
+     */
+    public void add(Entity entity) {
+        if (entity == null) {
+            return;
+        }
+        entities.add(entity);
+
+        if (packetBundler != null) {
+            packetBundler.register(entity);
+        }
+
+        if (policy == VisibilityPolicy.EVERYONE) {
+            // プールで再利用されたエンティティは以前のセッションで非表示にされている場合がある
+            if (!entity.isVisibleByDefault()) {
+                entity.setVisibleByDefault(true);
+            }
+        } else {
+            // デフォルトで非表示にし、見せるプレイヤーにだけ表示する（他のプレイヤーは追跡すらしない）
+            entity.setVisibleByDefault(false);
+            if (owner != null) {
+                owner.showEntity(plugin, entity);
+            }
+            for (UUID viewerId : viewers) {
+                Player viewer = plugin.getServer().getPlayer(viewerId);
+                if (viewer != null) {
+                    viewer.showEntity(plugin, entity);
+                }
+            }
+        }
+    }
+
+    /**
+     * エンティティの管理を外す（エンティティ自体は削除しない）
+     *
+     * @param entity 外すエンティティ（nullの場合は何もしない）
+     */
+    public void remove(Entity entity) {
+        if (entity == null) {
+            return;
+        }
+        entities.remove(entity);
+        if (packetBundler != null) {
+            packetBundler.unregister(entity);
+        }
+    }
+
+    /**
+     * プレイヤーを更新（リログ時など）
+     *
+     * @param owner プレイしているプレイヤー
+     */
+    public void setOwner(Player owner) {
+        this.owner = owner;
+        if (owner != null && policy != VisibilityPolicy.EVERYONE) {
+            for (Entity entity : entities) {
+                owner.showEntity(plugin, entity);
+            }
+        }
+    }
+
+    /**
+     * 見せるプレイヤーを計算し直し、変化したプレイヤーにだけ表示・非表示を送る（定期的に呼び出される）
+     */
+    public void refreshViewers() {
+        if (policy == VisibilityPolicy.EVERYONE || policy == VisibilityPolicy.OWNER || owner == null) {
+            return;
+        }
+
+        Set<UUID> current = new HashSet<>();
+        for (Player player : owner.getWorld().getPlayers()) {
+            if (player.equals(owner)) {
+                continue;
+            }
+            if (canSee(player)) {
+                current.add(player.getUniqueId());
+                if (!viewers.contains(player.getUniqueId())) {
+                    for (Entity entity : entities) {
+                        player.showEntity(plugin, entity);
+                    }
+                }
+            }
+        }
+
+        // 見せる対象から外れたプレイヤーには隠す
+        for (UUID viewerId : viewers) {
+            if (!current.contains(viewerId)) {
+                Player viewer = plugin.getServer().getPlayer(viewerId);
+                if (viewer != null) {
+                    for (Entity entity : entities) {
+                        viewer.hideEntity(plugin, entity);
+                    }
+                }
+            }
+        }
+
+        viewers.clear();
+        viewers.addAll(current);
+    }
+
+    /**
+     * 本人以外のプレイヤーに見せるかどうか
+     */
+    private boolean canSee(Player player) {
+        switch (policy) {
+            case OWNER_AND_SPECTATORS:
+                return player.getGameMode() == GameMode.SPECTATOR;
+            case NEARBY:
+                return player.getLocation().distanceSquared(owner.getLocation()) <= radius * radius;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 見せる対象のプレイヤーかどうか（パーティクルなどの演出用）
+     *
+     * @param player プレイヤー
+     * @return 本人または見せているプレイヤーの場合はtrue
+     */
+    public boolean isViewer(Player player) {
+        if (policy == VisibilityPolicy.EVERYONE || player.equals(owner)) {
+            return true;
+        }
+        return viewers.contains(player.getUniqueId());
+    }
+
+    /**
+     * 見せるプレイヤーを絞っているかどうか
+     *
+     * @return EVERYONE以外の場合はtrue
+     */
+    public boolean isScoped() {
+        return policy != VisibilityPolicy.EVERYONE;
+    }
+
+    /**
+     * パーティクルを表示
+     * 本人と見せているプレイヤー（全員に見せる設定では、絞る場合は本人とスペクテーター）に1人ずつ送り、
+     * 演出の予算と距離に応じて数を減らす（本人を優先）
+     *
+     * @param particle パーティクル
+     * @param location 位置
+     * @param count    数
+     * @param offsetX  Xの広がり
+     * @param offsetY  Yの広がり
+     * @param offsetZ  Zの広がり
+     * @param speed    速さ
+     */
+    public void spawnParticle(Particle particle, Location location, int count, double offsetX, double offsetY,
+            double offsetZ, double speed) {
+        if (effects == null && !isScoped()) {
+            location.getWorld().spawnParticle(particle, location, count, offsetX, offsetY, offsetZ, speed);
+            return;
+        }
+
+        if (owner != null && owner.isOnline() && owner.getWorld().equals(location.getWorld())) {
+            // 本人には予算を使い切っていても最低数を送る
+            int ownerCount = effects != null ? effects.acquireOwner(count) : count;
+            if (ownerCount > 0) {
+                owner.spawnParticle(particle, location, ownerCount, offsetX, offsetY, offsetZ, speed);
+            }
+        }
+
+        if (isScoped()) {
+            for (UUID viewerId : viewers) {
+                Player viewer = plugin.getServer().getPlayer(viewerId);
+                if (viewer != null) {
+                    sendParticle(viewer, particle, location, count, offsetX, offsetY, offsetZ, speed);
+                }
+            }
+            return;
+        }
+
+        for (Player player : location.getWorld().getPlayers()) {
+            if (player.equals(owner)) {
+                continue;
+            }
+            if (effects.isOwnerAndSpectatorsOnly() && player.getGameMode() != GameMode.SPECTATOR) {
+                continue;
+            }
+            sendParticle(player, particle, location, count, offsetX, offsetY, offsetZ, speed);
+        }
+    }
+
+    /**
+     * 1人のプレイヤーにパーティクルを送る（予算と距離で数を決める）
+     */
+    private void sendParticle(Player player, Particle particle, Location location, int count, double offsetX,
+            double offsetY, double offsetZ, double speed) {
+        if (effects != null) {
+            if (!player.getWorld().equals(location.getWorld())) {
+                return;
+            }
+            count = effects.acquire(count, player.getLocation().distanceSquared(location));
+            if (count <= 0) {
+                return;
+            }
+        }
+        player.spawnParticle(particle, location, count, offsetX, offsetY, offsetZ, speed);
+    }
+
+    /**
+     * 爆発エフェクトを表示（破壊力なし）
+     * 演出の予算を使う場合や見せるプレイヤーを絞っている場合は爆発を起こさず、パーティクルのみ送る
+     * （音は呼び出し側で本人に鳴らす）
+     *
+     * @param location 位置
+     */
+    public void spawnExplosion(Location location) {
+        if (effects == null && !isScoped()) {
+            location.getWorld().createExplosion(location, 0.0f, false, false);
+            return;
+        }
+        spawnParticle(Particle.EXPLOSION, location, 1, 0, 0, 0, 0);
+    }
+
+    /**
+     * すべてのエンティティの管理を外す（エンティティ自体は削除しない）
+     * 見せるプレイヤーを絞っている場合は、本人と見せていたプレイヤーからも隠す（プールで再利用するため）
+     */
+    public void clear() {
+        if (packetBundler != null) {
+            for (Entity entity : entities) {
+                packetBundler.unregister(entity);
+            }
+        }
+        if (isScoped()) {
+            for (Entity entity : entities) {
+                if (owner != null) {
+                    owner.hideEntity(plugin, entity);
+                }
+                for (UUID viewerId : viewers) {
+                    Player viewer = plugin.getServer().getPlayer(viewerId);
+                    if (viewer != null) {
+                        viewer.hideEntity(plugin, entity);
+                    }
+                }
+            }
+        }
+        entities.clear();
+        viewers.clear();
+    }
+}
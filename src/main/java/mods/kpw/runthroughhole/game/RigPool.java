@@ -0,0 +1,339 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.BlockDisplay;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 事前にスポーンしておくキューブ・カメラ・プレビューのエンティティ一式（リグ）のプール
+ * ゲーム開始時はプールからリグを割り当ててリセットし、終了時はプールに戻すため、開始時にまとめてスポーンしない
+ * 未使用のリグはワールドの最下層（岩盤の中）にスケール0で置いておく
+ * 事前にスポーンするのはゲーム中のセッションがあるワールドだけで、セッションがなくなってしばらくしたらリグとチケットを片付ける
+ */
+public class RigPool {
+    // 1リグあたり事前にスポーンしておく直方体用BlockDisplayの数
+    private static final int WARM_BOXES = 4;
+    // 割り当て中のリグがなくなってから、未使用のリグとチケットを片付けるまでのtick数
+    private static final int UNUSED_REMOVE_TICKS = 1200;
+    // 1リグあたりにスポーンするエンティティの数（キャリア・椅子・直方体・プレビュー）
+    private static final int RIG_ENTITIES = 2 + WARM_BOXES + DisplayPool.INITIAL_SIZE;
+
+    /**
+     * キューブ・カメラ・プレビューのエンティティ一式
+     */
+    public static class Rig {
+        public final BlockDisplay carrier; // キューブのキャリアエンティティ
+        public final BlockDisplay cameraSeat; // カメラの椅子
+        public final DisplayPool displayPool; // プレビュー用BlockDisplayのプール
+        private final Deque<BlockDisplay> spareBoxes = new ArrayDeque<>(); // 未使用の直方体用BlockDisplay
+        private final Location parkLocation;
+
+        private Rig(World world, Location parkLocation) {
+            this.parkLocation = parkLocation;
+            this.carrier = spawnEmpty(world, parkLocation);
+            this.cameraSeat = spawnEmpty(world, parkLocation);
+            for (int i = 0; i < WARM_BOXES; i++) {
+                spareBoxes.push(spawnBox(world, parkLocation));
+            }
+            this.displayPool = new DisplayPool(world, parkLocation, DisplayPool.INITIAL_SIZE, null);
+        }
+
+        /**
+         * 直方体用のBlockDisplayを借りる（足りなければスポーン）
+         *
+         * @param location 表示位置
+         * @return BlockDisplay
+         */
+        public BlockDisplay takeBox(Location location) {
+            BlockDisplay display = spareBoxes.poll();
+            while (display != null && !display.isValid()) {
+                display = spareBoxes.poll();
+            }
+            if (display == null) {
+                display = spawnBox(location.getWorld(), location);
+            } else {
+                display.teleport(location);
+            }
+            return display;
+        }
+
+        /**
+         * 直方体用のBlockDisplayを返却（スケール0にして待機位置に戻す）
+         *
+         * @param display 返却するBlockDisplay
+         */
+        public void returnBox(BlockDisplay display) {
+            if (display == null || !display.isValid()) {
+                return;
+            }
+            if (display.isInsideVehicle()) {
+                display.leaveVehicle();
+            }
+            display.setInterpolationDuration(0);
+            display.setInterpolationDelay(0);
+            display.setTransformation(DisplayPool.createHiddenTransformation());
+            display.teleport(parkLocation);
+            spareBoxes.push(display);
+        }
+
+        /**
+         * すべてのエンティティが有効かどうか
+         */
+        private boolean isValid() {
+            return carrier.isValid() && cameraSeat.isValid();
+        }
+
+        /**
+         * キャリアと椅子をリセットして待機位置に戻す
+         */
+        private void park() {
+            for (BlockDisplay entity : new BlockDisplay[] { carrier, cameraSeat }) {
+                entity.eject();
+                entity.setTeleportDuration(0);
+                entity.teleport(parkLocation);
+            }
+            displayPool.detach();
+        }
+
+        /**
+         * すべてのエンティティを削除
+         */
+        private void remove() {
+            carrier.remove();
+            cameraSeat.remove();
+            for (BlockDisplay display : spareBoxes) {
+                display.remove();
+            }
+            spareBoxes.clear();
+            displayPool.cleanup();
+        }
+    }
+
+    private final JavaPlugin plugin;
+    private final ChunkPreloader chunkPreloader; // 待機位置のチャンクのチケット（先読み範囲と参照数を共有する）
+    private final int warmSize; // ワールドごとに用意しておく未使用リグの数
+
+    // ワールドごとの未使用のリグ
+    private final Map<UUID, Deque<Rig>> idle = new HashMap<>();
+    // 割り当て中のリグ
+    private final List<Rig> inUse = new ArrayList<>();
+    // ワールドごとの待機位置（チャンクにチケットを付けている）
+    private final Map<UUID, Location> parkLocations = new HashMap<>();
+    // ワールドごとの、割り当て中のリグがなくなってからのtick数
+    private final Map<UUID, Integer> unusedTicks = new HashMap<>();
+    // これまでにスポーンしたエンティティの数（1tickあたりのスポーン数の制限に使う）
+    private int spawnCount;
+
+    /**
+     * コンストラクタ
+     *
+     * @param plugin         プラグイン
+     * @param chunkPreloader 待機位置のチャンクを読み込んだままにする（チケットを先読み範囲と共有する）
+     * @param warmSize       ワールドごとに用意しておく未使用リグの数
+     */
+    public RigPool(JavaPlugin plugin, ChunkPreloader chunkPreloader, int warmSize) {
+        this.plugin = plugin;
+        this.chunkPreloader = chunkPreloader;
+        this.warmSize = Math.max(0, warmSize);
+    }
+
+    /**
+     * リグを割り当てる（プールが空の場合はその場でスポーン）
+     *
+     * @param world    ワールド
+     * @param location 配置位置
+     * @return リグ
+     */
+    public Rig acquire(World world, Location location) {
+        Deque<Rig> rigs = getIdle(world);
+        Rig rig = rigs.poll();
+        while (rig != null && !rig.isValid()) {
+            rig.remove();
+            rig = rigs.poll();
+        }
+        if (rig == null) {
+            rig = spawnRig(world);
+        }
+
+        rig.carrier.teleport(location);
+        rig.cameraSeat.teleport(location);
+        inUse.add(rig);
+        return rig;
+    }
+
+    /**
+     * リグをプールに戻す（直方体用BlockDisplayはPlayerCube側で返却済みであること）
+     *
+     * @param rig 戻すリグ
+     */
+    public void release(Rig rig) {
+        if (rig == null || !inUse.remove(rig)) {
+            return;
+        }
+        if (!rig.isValid()) {
+            rig.remove();
+            return;
+        }
+        rig.park();
+        getIdle(rig.carrier.getWorld()).push(rig);
+    }
+
+    /**
+     * 未使用のリグが足りないワールドに1つだけスポーン（毎tick呼び出され、スポーンを複数tickに分散する）
+     * 用意するのは割り当て中のリグがある（ゲーム中のセッションがある）ワールドだけで、
+     * 割り当て中のリグがなくなって一定時間たったワールドは未使用のリグを削除し、待機位置のチケットを外す
+     */
+    public void tick() {
+        // 割り当て中のリグがあるワールド
+        Set<UUID> activeWorlds = new HashSet<>();
+        for (Rig rig : inUse) {
+            activeWorlds.add(rig.carrier.getWorld().getUID());
+        }
+
+        boolean spawned = false;
+        Iterator<Map.Entry<UUID, Deque<Rig>>> iterator = idle.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, Deque<Rig>> entry = iterator.next();
+            UUID worldId = entry.getKey();
+            World world = plugin.getServer().getWorld(worldId);
+            if (world == null) {
+                // アンロードされたワールド
+                iterator.remove();
+                parkLocations.remove(worldId);
+                unusedTicks.remove(worldId);
+                continue;
+            }
+
+            Deque<Rig> rigs = entry.getValue();
+            if (activeWorlds.contains(worldId)) {
+                unusedTicks.remove(worldId);
+                if (!spawned && rigs.size() < warmSize) {
+                    rigs.push(spawnRig(world));
+                    spawned = true;
+                }
+            } else if (unusedTicks.merge(worldId, 1, Integer::sum) >= UNUSED_REMOVE_TICKS) {
+                // しばらくセッションがないワールドのリグを片付ける
+                for (Rig rig : rigs) {
+                    rig.remove();
+                }
+                iterator.remove();
+                unusedTicks.remove(worldId);
+                releaseParkLocation(world);
+            }
+        }
+    }
+
+    /**
+     * これまでにスポーンしたエンティティの数を取得（前後の差で1tickあたりのスポーン数を数える）
+     *
+     * @return スポーンしたエンティティの数
+     */
+    public int getSpawnCount() {
+        return spawnCount;
+    }
+
+    /**
+     * リグを新しくスポーン
+     */
+    private Rig spawnRig(World world) {
+        spawnCount += RIG_ENTITIES;
+        return new Rig(world, getParkLocation(world));
+    }
+
+    /**
+     * すべてのリグを削除（プラグイン停止時）
+     */
+    public void cleanup() {
+        for (Deque<Rig> rigs : idle.values()) {
+            for (Rig rig : rigs) {
+                rig.remove();
+            }
+        }
+        idle.clear();
+        for (Rig rig : inUse) {
+            rig.remove();
+        }
+        inUse.clear();
+        for (UUID worldId : new ArrayList<>(parkLocations.keySet())) {
+            World world = plugin.getServer().getWorld(worldId);
+            if (world != null) {
+                releaseParkLocation(world);
+            }
+        }
+        parkLocations.clear();
+        unusedTicks.clear();
+    }
+
+    /**
+     * ワールドの未使用のリグを取得（アンロードされたワールドのものは破棄）
+     */
+    private Deque<Rig> getIdle(World world) {
+        Iterator<Map.Entry<UUID, Deque<Rig>>> iterator = idle.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (plugin.getServer().getWorld(iterator.next().getKey()) == null) {
+                iterator.remove();
+            }
+        }
+        return idle.computeIfAbsent(world.getUID(), k -> new ArrayDeque<>());
+    }
+
+    /**
+     * 未使用のリグの待機位置（スポーン地点の最下層、チャンクは ChunkPreloader の参照数で読み込んだままにする）
+     */
+    private Location getParkLocation(World world) {
+        return parkLocations.computeIfAbsent(world.getUID(), k -> {
+            Location spawn = world.getSpawnLocation();
+            Location park = new Location(world, spawn.getBlockX() + 0.5, world.getMinHeight() + 1, spawn.getBlockZ() + 0.5);
+            chunkPreloader.hold(world, park.getBlockX() >> 4, park.getBlockZ() >> 4);
+            return park;
+        }).clone();
+    }
+
+    /**
+     * 待機位置のチャンクのチケットを外す（ワールドのリグがすべてなくなったとき）
+     */
+    private void releaseParkLocation(World world) {
+        Location park = parkLocations.remove(world.getUID());
+        if (park != null) {
+            chunkPreloader.unhold(world, park.getBlockX() >> 4, park.getBlockZ() >> 4);
+        }
+    }
+
+    /**
+     * 中身のないBlockDisplayをスポーン（キャリア・椅子用）
+     */
+    private static BlockDisplay spawnEmpty(World world, Location location) {
+        // ワールドに追加する前に設定し、非表示のままスポーンさせる（見せるプレイヤーはRigEntitiesで決める）
+        return world.spawn(location, BlockDisplay.class, d -> {
+            d.setVisibleByDefault(false);
+            d.setPersistent(false);
+        });
+    }
+
+    /**
+     * 非表示状態の直方体用BlockDisplayをスポーン
+     */
+    private static BlockDisplay spawnBox(World world, Location location) {
+        // ワールドに追加する前に設定し、非表示のままスポーンさせる
+        return world.spawn(location, BlockDisplay.class, d -> {
+            d.setVisibleByDefault(false);
+            d.setPersistent(false);
+            d.setBrightness(new BlockDisplay.Brightness(15, 15));
+            d.setInterpolationDuration(0);
+            d.setInterpolationDelay(0);
+            d.setTransformation(DisplayPool.createHiddenTransformation());
+        });
+    }
+}
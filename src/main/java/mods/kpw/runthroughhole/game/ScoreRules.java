@@ -0,0 +1,102 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import mods.kpw.runthroughhole.Main;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * スコアの計算ルール（壁通過・パーフェクト通過の得点と時間ボーナス）
+ */
+public class ScoreRules {
+    private final int wallPoints; // 壁1枚あたりの得点
+    private final int perfectPoints; // パーフェクト通過1回あたりの得点
+    private final int[] timeLimits; // 時間ボーナスの経過tick数の上限（昇順）
+    private final int[] timePoints; // 時間ボーナスの得点（timeLimitsと同じ並び）
+
+    /**
+     * コンストラクタ
+     *
+     * @param wallPoints    壁1枚あたりの得点
+     * @param perfectPoints パーフェクト通過1回あたりの得点
+     * @param timeLimits    時間ボーナスの経過tick数の上限（昇順）
+     * @param timePoints    時間ボーナスの得点
+     */
+    public ScoreRules(int wallPoints, int perfectPoints, int[] timeLimits, int[] timePoints) {
+        this.wallPoints = wallPoints;
+        this.perfectPoints = perfectPoints;
+        this.timeLimits = timeLimits;
+        this.timePoints = timePoints;
+    }
+
+    /**
+     * 設定から作成
+     * time-bonusは「経過tick数の上限:得点」の形式（例: "2000:1000"）で上から順に並べる
+     *
+     * @param section scoringセクション（nullの場合は既定値）
+     * @return 計算ルール
+     */
+    public static ScoreRules fromConfig(ConfigurationSection section) {
+        if (section == null) {
+            return new ScoreRules(100, 300, new int[0], new int[0]);
+        }
+
+        List<String> entries = section.getStringList("time-bonus");
+        int[] limits = new int[entries.size()];
+        int[] points = new int[entries.size()];
+        int count = 0;
+        for (String entry : entries) {
+            String[] parts = entry.split(":");
+            try {
+                limits[count] = Integer.parseInt(parts[0].trim());
+                points[count] = Integer.parseInt(parts[1].trim());
+                count++;
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                Main.logger.warning("scoring.time-bonus の形式が不正です: " + entry);
+            }
+        }
+
+        return new ScoreRules(
+                section.getInt("wall-points", 100),
+                section.getInt("perfect-points", 300),
+                Arrays.copyOf(limits, count),
+                Arrays.copyOf(points, count));
+    }
+
+    /**
+     * 基本スコア
+     *
+     * @param wallsPassed 通過した壁の数
+     * @return 得点
+     */
+    public int base(int wallsPassed) {
+        return wallsPassed * wallPoints;
+    }
+
+    /**
+     * パーフェクトボーナス
+     *
+     * @param perfectWalls パーフェクト通過の回数
+     * @return 得点
+     */
+    public int perfectBonus(int perfectWalls) {
+        return perfectWalls * perfectPoints;
+    }
+
+    /**
+     * 時間ボーナス（経過tick数が上限以下の最初の段階の得点）
+     *
+     * @param gameTicks 経過tick数
+     * @return 得点（どの段階にも入らない場合は0）
+     */
+    public int timeBonus(int gameTicks) {
+        for (int i = 0; i < timeLimits.length; i++) {
+            if (gameTicks <= timeLimits[i]) {
+                return timePoints[i];
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,47 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.entity.Player;
+
+import java.util.EnumSet;
+
+/**
+ * 1セッション分の効果音のキュー
+ * 操作のたびに鳴らさず、1tickの間に鳴らしたい効果音を種類ごとに1回にまとめておき、tickの終わりにまとめて鳴らす
+ * （キーを押し続けたり回転を連打しても、1tickに鳴る効果音はプレイヤーごとに種類の数までに抑えられる）
+ */
+public class SoundQueue {
+
+    private final Player player; // 効果音を聞くプレイヤー
+    private final EnumSet<GameSound> pending = EnumSet.noneOf(GameSound.class); // このtickに鳴らす効果音
+
+    /**
+     * コンストラクタ
+     *
+     * @param player 効果音を聞くプレイヤー
+     */
+    public SoundQueue(Player player) {
+        this.player = player;
+    }
+
+    /**
+     * 効果音を予約（同じtickに同じ種類を何度予約しても1回だけ鳴る）
+     *
+     * @param sound 効果音
+     */
+    public void add(GameSound sound) {
+        pending.add(sound);
+    }
+
+    /**
+     * 予約した効果音を鳴らす（ゲームループのtickの終わり、またはゲーム終了時など次のtickを待てない場合）
+     * 効果音はプレイヤーごとのパケットなので、セッションをまたいでまとめても送る数は変わらない
+     */
+    public void flush() {
+        if (!pending.isEmpty() && player.isOnline()) {
+            for (GameSound sound : pending) {
+                sound.play(player);
+            }
+        }
+        pending.clear();
+    }
+}
@@ -0,0 +1,220 @@
+package mods.kpw.runthroughhole.game;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolLibrary;
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.wrappers.BlockPosition;
+import com.comphenix.protocol.wrappers.WrappedBlockData;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.joml.Vector2i;
+
+import mods.kpw.runthroughhole.Main;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * セッション専用の仮想の壁
+ * 壁はワールドに置かず、プレイヤー1人にだけ偽のブロック（複数ブロック変更パケット）として送る
+ * 当たり判定・穴判定はこのクラスの壁データを参照する（壁以外の位置はワールドのブロックを参照）
+ */
+public class VirtualCourse implements CourseBlocks {
+    // キューブの前方、この距離以内の壁をクライアントに送る（ブロック、プレイヤーの描画距離でさらに制限する）
+    private static final int SEND_DISTANCE = 48;
+
+    private final World world;
+    private final Player player;
+    private final ProtocolManager protocolManager;
+
+    private final Material wallMaterial;
+    private final WrappedBlockData wallData;
+    private final int centerX; // 壁の中心のX座標
+    private final int centerY; // 壁の中心のY座標
+    private final int radius; // 壁の半径（中心から端までのブロック数）
+
+    // Z座標ごとの壁
+    private final Map<Integer, WallIndex.Wall> walls = new HashMap<>();
+    // クライアントに送った壁のZ座標
+    private final Set<Integer> sentWalls = new HashSet<>();
+
+    // 検索用（使い回し）
+    private final Vector2i lookup = new Vector2i();
+
+    /**
+     * コンストラクタ
+     *
+     * @param world        ワールド
+     * @param player       壁を見せるプレイヤー
+     * @param wallMaterial 壁のマテリアル
+     * @param centerX      壁の中心のX座標
+     * @param centerY      壁の中心のY座標
+     * @param radius       壁の半径（ブロック）
+     */
+    public VirtualCourse(World world, Player player, Material wallMaterial, int centerX, int centerY, int radius) {
+        this.world = world;
+        this.player = player;
+        this.protocolManager = ProtocolLibrary.getProtocolManager();
+        this.wallMaterial = wallMaterial;
+        this.wallData = WrappedBlockData.createData(wallMaterial);
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.radius = radius;
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        WallIndex.Wall wall = walls.get(z);
+        if (wall != null && isInsideWall(x, y) && !wall.holes.contains(lookup.set(x, y))) {
+            return wallMaterial;
+        }
+        return world.getBlockAt(x, y, z).getType();
+    }
+
+    /**
+     * 壁の範囲内かどうか
+     */
+    private boolean isInsideWall(int x, int y) {
+        return Math.abs(x - centerX) <= radius && Math.abs(y - centerY) <= radius;
+    }
+
+    /**
+     * 壁を追加（クライアントへはupdateで近づいたときに送る）
+     *
+     * @param wall 追加する壁
+     */
+    public void addWall(WallIndex.Wall wall) {
+        walls.put(wall.z, wall);
+    }
+
+    /**
+     * 壁を削除し、クライアントの表示をワールドの本来のブロックに戻す
+     *
+     * @param z 壁のZ座標
+     */
+    public void removeWall(int z) {
+        WallIndex.Wall wall = walls.remove(z);
+        if (wall != null && sentWalls.remove(z)) {
+            sendWall(wall, false);
+        }
+    }
+
+    /**
+     * 壁の一覧を取得
+     *
+     * @return 壁の一覧（Z座標順）
+     */
+    public WallIndex toWallIndex() {
+        List<WallIndex.Wall> sorted = new ArrayList<>(walls.values());
+        sorted.sort((a, b) -> Integer.compare(a.z, b.z));
+        return new WallIndex(sorted);
+    }
+
+    /**
+     * キューブの位置に合わせて、近づいた壁をクライアントに送る（毎tick呼び出される）
+     * クライアントは読み込んでいないチャンクへのブロック変更を無視するため、近づいてから送る
+     *
+     * @param cubeZ キューブのZ座標
+     */
+    public void update(double cubeZ) {
+        if (sentWalls.size() == walls.size()) {
+            return;
+        }
+
+        // プレイヤー（カメラ）の描画距離の外のチャンクには送らない（読み込まれたときにresendChunkで送る）
+        double viewLimitZ = cubeZ - CubeCamera.CAMERA_DISTANCE_BEHIND + (player.getViewDistance() - 1) * 16;
+        double sendLimitZ = Math.min(cubeZ + SEND_DISTANCE, viewLimitZ);
+        for (WallIndex.Wall wall : walls.values()) {
+            if (wall.z <= sendLimitZ && sentWalls.add(wall.z)) {
+                sendWall(wall, true);
+            }
+        }
+    }
+
+    /**
+     * プレイヤーがチャンクを読み込んだとき、そのチャンクにある送信済みの壁を送り直す
+     * クライアントはチャンクを読み込み直すと偽のブロックを失うため（描画距離の出入り・テレポートなど）
+     *
+     * @param chunkX チャンクのX座標
+     * @param chunkZ チャンクのZ座標
+     */
+    public void resendChunk(int chunkX, int chunkZ) {
+        if (chunkX < (centerX - radius) >> 4 || chunkX > (centerX + radius) >> 4) {
+            return;
+        }
+        int minZ = chunkZ << 4;
+        for (int z = minZ; z < minZ + 16; z++) {
+            WallIndex.Wall wall = walls.get(z);
+            if (wall != null && sentWalls.contains(z)) {
+                sendWall(wall, true);
+            }
+        }
+    }
+
+    /**
+     * すべての壁を削除し、クライアントの表示を戻す（ゲーム終了時）
+     */
+    public void clear() {
+        for (WallIndex.Wall wall : walls.values()) {
+            if (sentWalls.contains(wall.z)) {
+                sendWall(wall, false);
+            }
+        }
+        walls.clear();
+        sentWalls.clear();
+    }
+
+    /**
+     * 壁のブロックをチャンクセクションごとにまとめてプレイヤーに送る
+     *
+     * @param wall    壁
+     * @param visible trueなら壁のブロック、falseならワールドの本来のブロックを送る
+     */
+    private void sendWall(WallIndex.Wall wall, boolean visible) {
+        if (!player.isOnline()) {
+            return;
+        }
+
+        // チャンクセクションごとに変更をまとめる
+        Map<BlockPosition, List<Short>> positions = new HashMap<>();
+        Map<BlockPosition, List<WrappedBlockData>> data = new HashMap<>();
+        for (int x = centerX - radius; x <= centerX + radius; x++) {
+            for (int y = centerY - radius; y <= centerY + radius; y++) {
+                if (wall.holes.contains(lookup.set(x, y))) {
+                    continue;
+                }
+                BlockPosition section = new BlockPosition(x >> 4, y >> 4, wall.z >> 4);
+                // セクション内の位置（x:4bit, z:4bit, y:4bit）
+                short local = (short) (((x & 15) << 8) | ((wall.z & 15) << 4) | (y & 15));
+                positions.computeIfAbsent(section, k -> new ArrayList<>()).add(local);
+                data.computeIfAbsent(section, k -> new ArrayList<>()).add(visible
+                        ? wallData
+                        : WrappedBlockData.createData(world.getBlockAt(x, y, wall.z).getBlockData()));
+            }
+        }
+
+        for (Map.Entry<BlockPosition, List<Short>> entry : positions.entrySet()) {
+            List<Short> locals = entry.getValue();
+            short[] shorts = new short[locals.size()];
+            for (int i = 0; i < shorts.length; i++) {
+                shorts[i] = locals.get(i);
+            }
+
+            try {
+                PacketContainer packet = protocolManager.createPacket(PacketType.Play.Server.MULTI_BLOCK_CHANGE);
+                packet.getSectionPositions().write(0, entry.getKey());
+                packet.getShortArrays().write(0, shorts);
+                packet.getBlockDataArrays().write(0, data.get(entry.getKey()).toArray(new WrappedBlockData[0]));
+                protocolManager.sendServerPacket(player, packet);
+            } catch (Exception e) {
+                Main.logger.warning("[VirtualCourse] 壁の送信エラー: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package mods.kpw.runthroughhole.game;
+
+/**
+ * ゲーム用エンティティ（キューブ・カメラ・プレビュー）を誰に見せるか
+ */
+public enum VisibilityPolicy {
+    /** 全員に見せる（通常のエンティティと同じ） */
+    EVERYONE,
+
+    /** プレイしている本人のみ */
+    OWNER,
+
+    /** 本人とスペクテーターモードのプレイヤー */
+    OWNER_AND_SPECTATORS,
+
+    /** 本人と一定距離内のプレイヤー */
+    NEARBY;
+
+    /**
+     * 設定値から変換（例: "owner-and-spectators"）
+     *
+     * @param value        設定値
+     * @param defaultValue 変換できない場合の値
+     * @return 変換結果
+     */
+    public static VisibilityPolicy fromConfig(String value, VisibilityPolicy defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package mods.kpw.runthroughhole.game;
+
+import org.joml.Quaternionf;
+import org.joml.Vector2i;
+import org.joml.Vector3f;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * キューブの形に合わせた穴の壁を生成するクラス
+ * 穴はキューブを24通りの向きのいずれかにして壁に投影した形なので、必ず通り抜けられる
+ */
+public class WallGenerator {
+    // 穴の位置を中心からずらす最大量（ブロック）
+    private static final int MAX_SHIFT = 1;
+
+    private final boolean[][][] pattern;
+    private final int centerX;
+    private final int centerY;
+    private final Random random;
+
+    /**
+     * コンストラクタ
+     *
+     * @param pattern キューブの形（3x3x3）
+     * @param centerX 壁の中心のX座標（キューブの開始位置）
+     * @param centerY 壁の中心のY座標（キューブの開始位置）
+     * @param seed    乱数のシード
+     */
+    public WallGenerator(boolean[][][] pattern, int centerX, int centerY, long seed) {
+        this.pattern = pattern;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * 次の壁を生成
+     *
+     * @param z 壁のZ座標
+     * @return 壁
+     */
+    public WallIndex.Wall next(int z) {
+        Quaternionf orientation = CubeMesh.getOrientation(random.nextInt(24));
+        int shiftX = random.nextInt(MAX_SHIFT * 2 + 1) - MAX_SHIFT;
+        int shiftY = random.nextInt(MAX_SHIFT * 2 + 1) - MAX_SHIFT;
+
+        // キューブを回転させて壁に投影した位置を穴にする
+        Set<Vector2i> holes = new HashSet<>();
+        Vector3f offset = new Vector3f();
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                for (int cz = 0; cz < 3; cz++) {
+                    if (!pattern[x][y][cz]) {
+                        continue;
+                    }
+                    offset.set(x - 1, y - 1, cz - 1).rotate(orientation);
+                    holes.add(new Vector2i(
+                            centerX + shiftX + Math.round(offset.x),
+                            centerY + shiftY + Math.round(offset.y)));
+                }
+            }
+        }
+
+        return new WallIndex.Wall(z, holes);
+    }
+}
@@ -0,0 +1,189 @@
+package mods.kpw.runthroughhole.game;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.joml.Vector2i;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * コースの壁の一覧（Z座標順）
+ * コースを一度だけ走査し、壁ごとの穴の位置と中心を記録する
+ * ワールドのコースは読み込み済みのチャンクの分だけ少しずつ走査する（チャンクの先読みに合わせて前方に伸びる）
+ * エンドレスモードでは走査せず、生成した壁を前方に追加し、通り過ぎた壁を削除する
+ */
+public class WallIndex {
+    // 壁判定の範囲（PlayerCubeの5x5範囲と同じ）
+    private static final int WALL_RANGE = 2;
+    // 5x5範囲にこの数以上ブロックがあれば壁とみなす（PlayerCube.findNextWallと同じ基準）
+    private static final int WALL_BLOCK_THRESHOLD = 10;
+
+    /**
+     * 1枚の壁
+     */
+    public static class Wall {
+        public final int z; // 壁のZ座標
+        public final Set<Vector2i> holes; // 穴の位置（壁上の2次元座標）
+        public final double centerX; // 穴の中心のX座標（ブロック中心基準）
+        public final double centerY; // 穴の中心のY座標（ブロック中心基準）
+
+        public Wall(int z, Set<Vector2i> holes) {
+            this.z = z;
+            this.holes = Collections.unmodifiableSet(holes);
+
+            // 穴のブロック中心の平均を中心とする
+            double sumX = 0, sumY = 0;
+            for (Vector2i hole : holes) {
+                sumX += hole.x + 0.5;
+                sumY += hole.y + 0.5;
+            }
+            this.centerX = holes.isEmpty() ? 0 : sumX / holes.size();
+            this.centerY = holes.isEmpty() ? 0 : sumY / holes.size();
+        }
+    }
+
+    private final List<Wall> walls;
+    private final List<Wall> wallsView;
+
+    // 読み込み済みのチャンクだけを走査する場合の状態（走査しない場合はscanWorldがnull）
+    private World scanWorld;
+    private int scanX, scanY; // 調べる5x5範囲の中心
+    private int scanNextZ; // 次に走査するZ座標
+    private int scanEndZ; // 走査の終わりのZ座標（含む）
+
+    public WallIndex(List<Wall> walls) {
+        this.walls = new ArrayList<>(walls);
+        this.wallsView = Collections.unmodifiableList(this.walls);
+    }
+
+    /**
+     * 読み込み済みのチャンクの分だけ走査する壁の一覧を作成（作成時点では空、scanLoadedで走査を進める）
+     *
+     * @param world  ワールド
+     * @param start  キューブの開始位置（この位置のXYを中心に5x5範囲を調べる）
+     * @param length 走査するZ方向の長さ（ブロック）
+     * @return 壁の一覧
+     */
+    public static WallIndex scanning(World world, Location start, int length) {
+        WallIndex index = new WallIndex(new ArrayList<>());
+        index.scanWorld = world;
+        index.scanX = start.getBlockX();
+        index.scanY = start.getBlockY();
+        index.scanNextZ = start.getBlockZ();
+        index.scanEndZ = start.getBlockZ() + length;
+        return index;
+    }
+
+    /**
+     * 読み込み済みのチャンクの分だけ走査を進める（毎tick呼び出される、チャンクを同期読み込みしない）
+     * 読み込まれていないチャンクに着いたら止まり、次の呼び出しで続きから走査する
+     *
+     * @return 壁が増えた場合はtrue
+     */
+    public boolean scanLoaded() {
+        if (isScanComplete()) {
+            return false;
+        }
+
+        int before = walls.size();
+        CourseBlocks course = CourseBlocks.of(scanWorld);
+        int minChunkX = (scanX - WALL_RANGE) >> 4;
+        int maxChunkX = (scanX + WALL_RANGE) >> 4;
+        while (scanNextZ <= scanEndZ) {
+            int chunkZ = scanNextZ >> 4;
+            if (!scanWorld.isChunkLoaded(minChunkX, chunkZ) || !scanWorld.isChunkLoaded(maxChunkX, chunkZ)) {
+                break;
+            }
+            // チャンクの境界までまとめて走査
+            int sliceEndZ = Math.min(scanEndZ, (chunkZ << 4) + 15);
+            scanRange(course, scanX, scanY, scanNextZ, sliceEndZ, walls);
+            scanNextZ = sliceEndZ + 1;
+        }
+        return walls.size() > before;
+    }
+
+    /**
+     * 走査が終わっているかどうか
+     *
+     * @return 走査しない一覧、または最後まで走査した場合はtrue
+     */
+    public boolean isScanComplete() {
+        return scanWorld == null || scanNextZ > scanEndZ;
+    }
+
+    /**
+     * Z方向の範囲を走査し、穴のある壁を追加する
+     */
+    private static void scanRange(CourseBlocks course, int centerX, int centerY, int fromZ, int toZ, List<Wall> out) {
+        for (int z = fromZ; z <= toZ; z++) {
+            int blockCount = 0;
+            Set<Vector2i> holes = new HashSet<>();
+            for (int dx = -WALL_RANGE; dx <= WALL_RANGE; dx++) {
+                for (int dy = -WALL_RANGE; dy <= WALL_RANGE; dy++) {
+                    int x = centerX + dx;
+                    int y = centerY + dy;
+                    if (PlayerCube.isAir(course.getType(x, y, z))) {
+                        holes.add(new Vector2i(x, y));
+                    } else {
+                        blockCount++;
+                    }
+                }
+            }
+
+            // 穴のある壁のみ記録
+            if (blockCount >= WALL_BLOCK_THRESHOLD && !holes.isEmpty()) {
+                out.add(new Wall(z, holes));
+            }
+        }
+    }
+
+    /**
+     * 壁の一覧を取得（Z座標順）
+     */
+    public List<Wall> getWalls() {
+        return wallsView;
+    }
+
+    /**
+     * 壁を末尾に追加（既存の壁より後ろのZ座標であること）
+     *
+     * @param wall 追加する壁
+     */
+    public void add(Wall wall) {
+        walls.add(wall);
+    }
+
+    /**
+     * 指定したZ座標より手前の壁を削除
+     *
+     * @param z このZ座標より手前（小さい）の壁を削除
+     * @return 削除した壁の一覧
+     */
+    public List<Wall> removeBefore(double z) {
+        List<Wall> removed = new ArrayList<>();
+        while (!walls.isEmpty() && walls.get(0).z < z) {
+            removed.add(walls.remove(0));
+        }
+        return removed;
+    }
+
+    /**
+     * 最後の壁を取得
+     *
+     * @return 最後の壁（壁がない場合はnull）
+     */
+    public Wall getLast() {
+        return walls.isEmpty() ? null : walls.get(walls.size() - 1);
+    }
+
+    /**
+     * 壁があるか
+     */
+    public boolean isEmpty() {
+        return walls.isEmpty();
+    }
+}
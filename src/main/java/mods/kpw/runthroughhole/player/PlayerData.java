@@ -2,15 +2,24 @@ package mods.kpw.runthroughhole.player;
 
 import org.bukkit.GameMode;
 import org.bukkit.Location;
-import org.bukkit.boss.BossBar;
 import org.bukkit.entity.Player;
 
 import mods.kpw.runthroughhole.game.PlayerCube;
+import mods.kpw.runthroughhole.game.ChunkPreloader;
+import mods.kpw.runthroughhole.game.CourseMode;
 import mods.kpw.runthroughhole.game.CubeCamera;
 import mods.kpw.runthroughhole.game.HolePreview;
 import mods.kpw.runthroughhole.game.CubePreview;
+import mods.kpw.runthroughhole.game.DisplayPool;
+import mods.kpw.runthroughhole.game.EndlessCourse;
 import mods.kpw.runthroughhole.game.HoleTracingManager;
+import mods.kpw.runthroughhole.game.RigEntities;
+import mods.kpw.runthroughhole.game.RigPool;
+import mods.kpw.runthroughhole.game.VirtualCourse;
 import mods.kpw.runthroughhole.game.GameScoreTracker;
+import mods.kpw.runthroughhole.game.GameHud;
+import mods.kpw.runthroughhole.game.SoundQueue;
+import mods.kpw.runthroughhole.game.WallIndex;
 
 public class PlayerData {
     public Player player; // プレイヤーオブジェクト
@@ -18,18 +27,31 @@ public class PlayerData {
     public CubeCamera camera; // カメラ
     public HolePreview preview; // 穴のプレビュー表示
     public CubePreview cubePreview; // キューブの手前に表示するプレビュー
+    public DisplayPool displayPool; // プレビュー用BlockDisplayのプール
+    public RigEntities rig; // ゲーム用エンティティの管理（パケットのまとめ送信・見せるプレイヤー）
+    public RigPool.Rig pooledRig; // プールから割り当てられたキューブとカメラのエンティティ一式
     public HoleTracingManager tracingManager; // 穴なぞり管理
+    public WallIndex wallIndex; // コースの壁の一覧
+    public ChunkPreloader.Window chunkWindow; // キューブの前方のチャンクの先読み範囲
+    public VirtualCourse virtualCourse; // 練習モードの仮想の壁（通常はnull）
+    public EndlessCourse endlessCourse; // エンドレスモードのコース（通常はnull）
+    public CourseMode courseMode; // コースの種類
     public GameScoreTracker scoreTracker; // スコアボード管理
-    public BossBar warningBossBar; // 壁接近警告用ボスバー
-    public String currentGuide; // 現在表示中のガイド（null = 非表示）
+    public GameHud hud; // 壁接近警告ボスバーと視点ガイドの表示
+    public SoundQueue sounds; // このtickに鳴らす効果音
     public boolean isYawOutside; // Yaw方向でGESTURE_THRESHOLD外にいるかどうか
     public boolean isPitchOutside; // Pitch方向でGESTURE_THRESHOLD外にいるかどうか
     public int lastCommandTick; // 最後にコマンドを実行したtick
     public boolean isGameOver; // ゲームオーバー処理中かどうか
+    public boolean isWaitingForStart; // 準備済みで開始を待っているかどうか（まとめて開始用）
+    public boolean beginWhenReady; // 先読みしたチャンクが読み込まれたら開始する（1人で始めた場合）
+    public int chunkWaitTicks; // 開始前にチャンクの読み込みを待ったtick数
     public GameMode originalGameMode; // ゲーム開始時のゲームモード
 
     // 位置管理
     public Location initialLocation; // ゲーム開始時の初期位置（不変）
+    public Location returnLocation; // ゲーム専用ワールドで遊ぶ場合、終了時に戻る位置（通常はnull）
+    public int gameLane = -1; // ゲーム専用ワールドのレーン番号（使わない場合は-1）
     public int lastMoveTick; // 最後に移動したtick
 
     // 加速機能
@@ -41,7 +63,6 @@ public class PlayerData {
 
     public PlayerData(Player player) {
         this.player = player;
-        this.currentGuide = null;
         this.isYawOutside = false;
         this.isPitchOutside = false;
         this.lastCommandTick = 0;
@@ -7,8 +7,7 @@ import com.comphenix.protocol.events.ListenerPriority;
 import com.comphenix.protocol.events.PacketAdapter;
 import com.comphenix.protocol.events.PacketContainer;
 import com.comphenix.protocol.events.PacketEvent;
-import net.kyori.adventure.text.Component;
-import net.kyori.adventure.title.Title;
+import io.papermc.paper.event.packet.PlayerChunkLoadEvent;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -24,7 +23,6 @@ import mods.kpw.runthroughhole.game.GameScoreTracker;
 import mods.kpw.runthroughhole.game.GameSound;
 import mods.kpw.runthroughhole.game.PlayerCube;
 
-import java.time.Duration;
 import java.util.UUID;
 
 public class PlayerGameListener implements Listener {
@@ -57,7 +55,7 @@ public class PlayerGameListener implements Listener {
                             return;
 
                         PlayerData data = mainPlugin.getPlayerDataManager().getPlayerData(player);
-                        if (data == null || data.camera == null || data.isGameOver)
+                        if (data == null || data.camera == null || data.isGameOver || data.isWaitingForStart)
                             return;
 
                         boolean forward, backward, left, right, jump, shift;
@@ -108,7 +106,7 @@ public class PlayerGameListener implements Listener {
                     return;
 
                 PlayerData data = mainPlugin.getPlayerDataManager().getPlayerData(player);
-                if (data == null || data.camera == null || data.isGameOver)
+                if (data == null || data.camera == null || data.isGameOver || data.isWaitingForStart)
                     return;
 
                 float yaw, pitch;
@@ -161,7 +159,7 @@ public class PlayerGameListener implements Listener {
 
         // 回転が成功した場合のみ効果音を再生
         if (rotationSuccess) {
-            GameSound.ROTATION.play(data.player);
+            data.sounds.add(GameSound.ROTATION);
         }
         
         // クールダウンタイムスタンプを更新
@@ -179,12 +177,22 @@ public class PlayerGameListener implements Listener {
         }
     }
 
+    @EventHandler
+    public void onPlayerChunkLoad(PlayerChunkLoadEvent event) {
+        PlayerData data = plugin.getPlayerDataManager().getPlayerData(event.getPlayer());
+        if (data == null || data.virtualCourse == null)
+            return; // 仮想の壁を使っていないプレイヤーは無視
+
+        // 読み込み直したチャンクの仮想の壁を送り直す
+        data.virtualCourse.resendChunk(event.getChunk().getX(), event.getChunk().getZ());
+    }
+
     @EventHandler
     public void onPlayerInteract(PlayerInteractEvent event) {
         Player player = event.getPlayer();
         PlayerData data = plugin.getPlayerDataManager().getPlayerData(player);
-        if (data == null || data.cube == null || data.isGameOver)
-            return; // ゲーム中でないプレイヤーまたはゲームオーバー中のプレイヤーは無視
+        if (data == null || data.cube == null || data.isGameOver || data.isWaitingForStart)
+            return; // ゲーム中でないプレイヤーまたはゲームオーバー中・開始待ちのプレイヤーは無視
 
         // クールダウンチェック（tickベース）
         int currentTick = plugin.getServer().getCurrentTick();
@@ -233,7 +241,7 @@ public class PlayerGameListener implements Listener {
             // プレビューパネルが緑でSpaceキーが押された場合、連続加速を開始
             Boolean isGreen = playerData.preview.isPreviewGreen();
             if (isGreen != null && isGreen) {
-                GameSound.CONTINUOUS_BOOST_START.play(playerData.player);
+                playerData.sounds.add(GameSound.CONTINUOUS_BOOST_START);
                 playerData.cube.startContinuousBoosting();
             }
             // ジャンプキーが押された場合、加速開始
@@ -241,7 +249,7 @@ public class PlayerGameListener implements Listener {
 
             // 加速開始時の効果音を再生（Spaceキーが押された瞬間のみ）
             if (wasNotBoosting) {
-                GameSound.BOOST_START.play(playerData.player);
+                playerData.sounds.add(GameSound.BOOST_START);
             }
         } else {
             // 連続加速モードじゃない場合、ジャンプキーを離したら加速停止
@@ -281,7 +289,7 @@ public class PlayerGameListener implements Listener {
 
             // 移動が成功した場合のみ効果音を再生
             if (moveSuccess) {
-                GameSound.MOVE.play(playerData.player);
+                playerData.sounds.add(GameSound.MOVE);
                 playerData.lastMoveTick = currentTick;
             }
             // 移動が失敗した場合は何もしない
@@ -378,22 +386,9 @@ public class PlayerGameListener implements Listener {
             currentGuide = "┘";
         }
 
-        // ガイドが変更された場合のみ更新
-        if (currentGuide != null && !currentGuide.equals(playerData.currentGuide)) {
-            Title title = Title.title(
-                    Component.empty(),
-                    Component.text(currentGuide),
-                    Title.Times.times(Duration.ofMillis(0), Duration.ofSeconds(5), Duration.ofSeconds(1)));
-            playerData.player.showTitle(title);
-            playerData.currentGuide = currentGuide;
-        } else if (currentGuide == null && playerData.currentGuide != null) {
-            // ガイドを非表示
-            Title title = Title.title(
-                    Component.empty(),
-                    Component.empty(),
-                    Title.Times.times(Duration.ofMillis(0), Duration.ofMillis(0), Duration.ofSeconds(1)));
-            playerData.player.showTitle(title);
-            playerData.currentGuide = null;
+        // 送信はゲームループでまとめて行う（変化したときだけ、1tickに1回）
+        if (playerData.hud != null) {
+            playerData.hud.setGuide(currentGuide);
         }
     }
 